@@ -0,0 +1,122 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.KnownReceiverIndex;
+import com.projeto.antifraud.service.RiskAnalysisService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+  RiskAnalysisService.analyzeTransaction de ponta a ponta (contexto, regras,
+  gravação) contra H2 em memória com histórico sintético.
+  - outcome: cada valor gera transações que terminam naquela decisão
+    (conferido no setup): APPROVED, AUTH_ATTEMPTS, PANIC_MODE,
+    DEVICE_CHANGE, NEW_RECEIVER.
+  - historyDepth: transações gravadas por remetente antes da medição.
+  - senders: remetentes distintos sorteados a cada operação; junto com
+    -t (threads JMH) controla a concorrência entre contas.
+  - Cada remetente tem um relógio próprio que avança 10 minutos por
+    transação (2h em NEW_RECEIVER): fora de PANIC_MODE as regras de
+    velocidade não disparam.
+  - Throughput e SampleTime (p99 no relatório); alocação por operação
+    com -prof gc (gc.alloc.rate.norm).
+  - Exemplo: ./mvnw -Pbenchmark test-compile exec:exec
+      -Djmh.args="AnalyzeTransaction -t 8 -prof gc -rf json -rff target/jmh-analyze.json"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalyzeTransactionBenchmark {
+
+    public enum Outcome {
+        APPROVED(RiskReason.APPROVED),
+        AUTH_ATTEMPTS(RiskReason.AUTH_ATTEMPTS),
+        PANIC_MODE(RiskReason.PANIC_MODE),
+        DEVICE_CHANGE(RiskReason.DEVICE_CHANGE),
+        NEW_RECEIVER(RiskReason.NEW_RECEIVER);
+
+        final RiskReason expected;
+
+        Outcome(RiskReason expected) {
+            this.expected = expected;
+        }
+    }
+
+    @Param({"APPROVED", "AUTH_ATTEMPTS", "PANIC_MODE", "DEVICE_CHANGE", "NEW_RECEIVER"})
+    public Outcome outcome;
+
+    @Param({"1", "100"})
+    public int historyDepth;
+
+    @Param({"1000"})
+    public int senders;
+
+    private ConfigurableApplicationContext context;
+    private RiskAnalysisService riskAnalysisService;
+
+    private AtomicLongArray clocks;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(Map.of());
+        riskAnalysisService = context.getBean(RiskAnalysisService.class);
+        SyntheticHistory.seed(context.getBean(TransactionRepository.class), senders, historyDepth);
+        context.getBean(KnownReceiverIndex.class).warmUp();
+        clocks = new AtomicLongArray(senders);
+
+        // Confere que o cenário produz a decisão esperada
+        for (int i = 0; i < 4; i++) {
+            RiskReason reason = riskAnalysisService.analyzeTransaction(next()).getRiskCode();
+            if (i == 3 && outcome.expected != reason) {
+                throw new IllegalStateException(outcome + " produziu: " + reason);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction analyze() {
+        return riskAnalysisService.analyzeTransaction(next());
+    }
+
+    private Transaction next() {
+        int i = outcome == Outcome.PANIC_MODE ? 0 : ThreadLocalRandom.current().nextInt(senders);
+        long step = switch (outcome) {
+            case PANIC_MODE -> 1;           // um remetente só, 1s entre transações
+            case NEW_RECEIVER -> 7_200;     // recebedores novos fora da janela de 1h de MultipleReceivers
+            default -> 600;
+        };
+        LocalDateTime ts = SyntheticHistory.BASE.plusSeconds(clocks.getAndAdd(i, step));
+        String sender = SyntheticHistory.sender(i);
+        Transaction t = SyntheticTransactions.of(sender, SyntheticHistory.receiver(i), ts);
+        switch (outcome) {
+            case AUTH_ATTEMPTS -> t.setAuthAttempts(3);
+            case DEVICE_CHANGE -> t.setDeviceId("dev-" + sequence.incrementAndGet());
+            case NEW_RECEIVER -> {
+                t.setReceiverAccountId("new-" + sequence.incrementAndGet());
+                t.setAmount(new BigDecimal("1500.00"));
+            }
+            default -> {
+            }
+        }
+        return t;
+    }
+}
@@ -0,0 +1,32 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.AntifraudApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+  Sobe a aplicação para benchmarks, sem camada web, contra um H2 em memória
+  exclusivo (cada estado JMH recebe seu próprio banco).
+*/
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        props.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        props.put("logging.level.root", "WARN");
+        props.putAll(overrides);
+        return new SpringApplicationBuilder(AntifraudApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(props)
+                .run();
+    }
+}
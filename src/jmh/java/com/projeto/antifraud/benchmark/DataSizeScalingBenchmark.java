@@ -0,0 +1,127 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.LastSeenView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Latência das consultas do TransactionRepository conforme a tabela cresce.
+  - rows: 1M, 10M e 50M linhas sintéticas em H2 em arquivo (target/bench-data);
+    a carga é feita uma vez por tamanho com INSERT ... SELECT e reaproveitada
+    nas execuções seguintes.
+  - indexed=false remove os índices de Transaction antes de medir: mostra a
+    varredura completa que as consultas faziam antes dos índices.
+  - lastSeenEntity x lastSeenProjection: entidade inteira contra a projeção
+    LastSeenView (mesmo índice, menos colunas lidas e nenhuma entidade gerenciada).
+  - Com indexed=true a latência deve ficar estável entre 1M e 50M linhas.
+  - Exemplo: mvn -Pbenchmark test-compile exec:exec -Djmh.args="DataSizeScaling -p rows=1000000"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DataSizeScalingBenchmark {
+
+    static final int ACCOUNTS = 200_000;
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 27, 12, 0);
+
+    static final String[] INDEXES = {"idx_tx_sender_ts", "idx_tx_receiver_ts", "idx_tx_ip_ts", "idx_tx_ts"};
+
+    @Param({"1000000", "10000000", "50000000"})
+    public long rows;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(Map.of(
+                "spring.datasource.url", "jdbc:h2:file:./target/bench-data/scale-" + rows + ";CACHE_SIZE=262144",
+                "spring.jpa.hibernate.ddl-auto", "update"));
+        transactionRepository = context.getBean(TransactionRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        Long count = jdbc.queryForObject("select count(*) from transactions", Long.class);
+        if (count == null || count < rows) {
+            seed(jdbc, count == null ? 0 : count);
+        }
+        if (!indexed) {
+            for (String index : INDEXES) {
+                jdbc.execute("drop index if exists " + index);
+            }
+        }
+        jdbc.execute("analyze");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (!indexed) {
+            // Recria os índices para a próxima combinação de parâmetros (ddl-auto=update)
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            jdbc.execute("create index if not exists idx_tx_sender_ts on transactions (sender_account_id, timestamp)");
+            jdbc.execute("create index if not exists idx_tx_receiver_ts on transactions (receiver_account_id, timestamp)");
+            jdbc.execute("create index if not exists idx_tx_ip_ts on transactions (ip_address, timestamp)");
+            jdbc.execute("create index if not exists idx_tx_ts on transactions (timestamp)");
+        }
+        context.close();
+    }
+
+    // Uma linha por segundo para trás a partir de NOW; remetente, recebedor e IP derivados do id
+    private void seed(JdbcTemplate jdbc, long from) {
+        jdbc.update("insert into transactions (id, amount, sender_account_id, receiver_account_id, channel, device_id, "
+                + "ip_address, geo_location, auth_attempts, timestamp, is_suspicious, risk_reason) "
+                + "select x, 10.00, 'acct-' || mod(x, ?), 'rcv-' || mod(x * 7919, ?), 'APP', 'dev-' || mod(x, ?), "
+                + "'10.' || mod(x, 250) || '.' || mod(x / 250, 250) || '.1', 'BR', 0, "
+                + "dateadd('SECOND', -x, cast(? as timestamp)), false, 'Transação aprovada.' "
+                + "from system_range(?, ?)",
+                ACCOUNTS, ACCOUNTS * 5, ACCOUNTS, NOW, from + 1, rows);
+        jdbc.execute("alter sequence transactions_seq restart with " + (rows + 1));
+    }
+
+    private static String anyAccount() {
+        return "acct-" + ThreadLocalRandom.current().nextInt(ACCOUNTS);
+    }
+
+    @Benchmark
+    public Optional<Transaction> lastSeenEntity() {
+        return transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyAccount());
+    }
+
+    @Benchmark
+    public Optional<LastSeenView> lastSeenProjection() {
+        return transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc(anyAccount());
+    }
+
+    @Benchmark
+    public List<Transaction> senderWindow() {
+        return transactionRepository.findBySenderAccountIdAndTimestampAfter(anyAccount(), NOW.minusHours(24));
+    }
+
+    @Benchmark
+    public List<Transaction> receiverWindow() {
+        String receiver = "rcv-" + ThreadLocalRandom.current().nextInt(ACCOUNTS * 5);
+        return transactionRepository.findByReceiverAccountIdAndTimestampAfter(receiver, NOW.minusHours(24));
+    }
+
+    @Benchmark
+    public List<Transaction> ipWindow() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String ip = "10." + random.nextInt(250) + "." + random.nextInt(250) + ".1";
+        return transactionRepository.findByIpAddressAndTimestampAfter(ip, NOW.minusHours(24));
+    }
+}
@@ -0,0 +1,84 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.dto.RiskVerdict;
+import com.projeto.antifraud.dto.TransactionRequest;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import com.projeto.antifraud.service.rule.*;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Bytes alocados por requisição no caminho de decisão, sem banco nem Spring.
+  - bindEntity x bindRequest: JSON -> Transaction direto (antes) contra
+    JSON -> TransactionRequest -> Transaction (agora).
+  - writeEntity x writeVerdict: resposta com a entidade inteira (antes)
+    contra RiskVerdict (agora).
+  - evaluateRules: motor de regras sobre um RiskContext pronto; com códigos
+    RiskReason e limites estáticos não deve alocar além do RuleMatch.
+  - Rodar com -prof gc e comparar gc.alloc.rate.norm (bytes/op):
+      ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="DecisionPathAllocation -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class DecisionPathAllocationBenchmark {
+
+    static final byte[] BODY = ("{\"amount\":50.00,\"currency\":\"BRL\",\"senderAccountId\":\"acct-100\","
+            + "\"receiverAccountId\":\"acct-200\",\"customerId\":\"cust-100\",\"channel\":\"APP\","
+            + "\"deviceId\":\"dev-1\",\"ipAddress\":\"192.168.0.10\",\"geoLocation\":\"BR\","
+            + "\"authAttempts\":0,\"timestamp\":\"2025-11-27T11:00:00\"}").getBytes(StandardCharsets.UTF_8);
+
+    private JsonMapper mapper;
+    private RuleEngine ruleEngine;
+    private Transaction analyzed;
+    private RiskContext ctx;
+
+    @Setup
+    public void setup() {
+        mapper = JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+        ruleEngine = new RuleEngine(List.of(
+                new AuthAttemptsRule(), new PanicModeRule(), new SharedEntityRule(), new ChannelChangeRule(), new DeviceChangeRule(),
+                new GeoChangeRule(), new MultipleReceiversRule(), new HighAmountRule(), new NewReceiverRule()), "");
+        analyzed = mapper.readValue(BODY, TransactionRequest.class).toEntity();
+        analyzed.setDeviceId("dev-2");
+        ctx = RiskContext.of(0, 1, null, true);
+        RuleMatch match = ruleEngine.evaluate(analyzed, ctx);
+        analyzed.setSuspicious(match != null);
+        analyzed.setRiskCode(match != null ? match.reason() : null);
+        analyzed.setRiskReason(match != null ? match.reason().message() : null);
+    }
+
+    @Benchmark
+    public Transaction bindEntity() {
+        return mapper.readValue(BODY, Transaction.class);
+    }
+
+    @Benchmark
+    public Transaction bindRequest() {
+        return mapper.readValue(BODY, TransactionRequest.class).toEntity();
+    }
+
+    @Benchmark
+    public byte[] writeEntity() {
+        return mapper.writeValueAsBytes(analyzed);
+    }
+
+    @Benchmark
+    public byte[] writeVerdict() {
+        return mapper.writeValueAsBytes(RiskVerdict.of(analyzed));
+    }
+
+    @Benchmark
+    public RuleMatch evaluateRules() {
+        return ruleEngine.evaluate(analyzed, ctx);
+    }
+}
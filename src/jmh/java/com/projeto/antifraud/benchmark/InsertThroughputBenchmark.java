@@ -0,0 +1,78 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Vazão de INSERT de transações analisadas sob carga concorrente (8 threads).
+  - saveEach: um save por transação (caminho do endpoint unitário).
+  - saveAllBatch: saveAll de um bloco (caminho do endpoint de lote).
+  - jdbcBatchSize=1 desliga o lote JDBC; 50 é a configuração da aplicação.
+  - Para o "antes" (id IDENTITY), rodar o mesmo benchmark no commit anterior
+    à troca para sequence: com IDENTITY o Hibernate ignora o batch_size.
+  - Resultado em linhas/segundo (OperationsPerInvocation = ROWS).
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class InsertThroughputBenchmark {
+
+    static final int ROWS = 100;
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(Map.of("spring.jpa.properties.hibernate.jdbc.batch_size", jdbcBatchSize));
+        transactionRepository = context.getBean(TransactionRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int saveEach() {
+        int saved = 0;
+        for (Transaction t : rows()) {
+            transactionRepository.save(t);
+            saved++;
+        }
+        return saved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Transaction> saveAllBatch() {
+        return transactionRepository.saveAll(rows());
+    }
+
+    private static List<Transaction> rows() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(SyntheticTransactions.of("acct-" + random.nextInt(10_000), "rcv-" + random.nextInt(50_000), now));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,88 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.repository.LastSeenView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Consultas do TransactionRepository usadas no caminho de análise, isoladas
+  do restante do serviço, sobre o mesmo histórico sintético de
+  AnalyzeTransactionBenchmark.
+  - lastSeen: última transação de um remetente (falta no LastSeenCache).
+  - receiverExists: confirmação exata de recebedor conhecido.
+  - lastSeenBatch / knownReceiversBatch: variantes por bloco do analyzeBatch.
+  - Para o crescimento da tabela (1M–50M linhas) ver DataSizeScalingBenchmark.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RepositoryHotPathBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({"1", "100"})
+    public int historyDepth;
+
+    @Param({"1000"})
+    public int senders;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(Map.of());
+        transactionRepository = context.getBean(TransactionRepository.class);
+        SyntheticHistory.seed(transactionRepository, senders, historyDepth);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<LastSeenView> lastSeen() {
+        return transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc(
+                SyntheticHistory.sender(ThreadLocalRandom.current().nextInt(senders)));
+    }
+
+    @Benchmark
+    public boolean receiverExists() {
+        return transactionRepository.existsByReceiverAccountId(
+                SyntheticHistory.receiver(ThreadLocalRandom.current().nextInt(senders)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<LastSeenView> lastSeenBatch() {
+        return transactionRepository.findLastSeenBySenderAccountIdIn(ids(true));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> knownReceiversBatch() {
+        return transactionRepository.findKnownReceiverAccountIdsIn(ids(false));
+    }
+
+    private List<String> ids(boolean sender) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> ids = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            int n = random.nextInt(senders);
+            ids.add(sender ? SyntheticHistory.sender(n) : SyntheticHistory.receiver(n));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,50 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.TransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Histórico sintético gravado no H2 antes das medições.
+  - Remetente "acct-i" com depth transações para o recebedor "rcv-i",
+    dispositivo "dev-acct-i", uma por hora antes de BASE (fora das janelas
+    de velocidade): o histórico pesa nas consultas, não nas regras.
+  - Gravação em blocos de saveAll (lote JDBC).
+*/
+public final class SyntheticHistory {
+
+    public static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 6, 10, 0);
+
+    private static final int CHUNK = 1_000;
+
+    private SyntheticHistory() {
+    }
+
+    public static String sender(int i) {
+        return "acct-" + i;
+    }
+
+    public static String receiver(int i) {
+        return "rcv-" + i;
+    }
+
+    public static void seed(TransactionRepository transactionRepository, int senders, int depth) {
+        List<Transaction> chunk = new ArrayList<>(CHUNK);
+        for (int d = depth; d >= 1; d--) {
+            LocalDateTime ts = BASE.minusHours(d);
+            for (int i = 0; i < senders; i++) {
+                chunk.add(SyntheticTransactions.of(sender(i), receiver(i), ts));
+                if (chunk.size() == CHUNK) {
+                    transactionRepository.saveAll(chunk);
+                    chunk = new ArrayList<>(CHUNK);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            transactionRepository.saveAll(chunk);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.projeto.antifraud.benchmark;
+
+import com.projeto.antifraud.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/*
+  Gerador determinístico de transações sintéticas para benchmarks.
+  - Cardinalidade de remetentes/recebedores configurável.
+  - Valores baixos, canal APP e dispositivo fixo por conta: por padrão as
+    transações geradas são aprovadas; cada benchmark ajusta o que precisa.
+*/
+public final class SyntheticTransactions {
+
+    private final SplittableRandom random;
+    private final int senders;
+    private final int receivers;
+
+    public SyntheticTransactions(long seed, int senders, int receivers) {
+        this.random = new SplittableRandom(seed);
+        this.senders = senders;
+        this.receivers = receivers;
+    }
+
+    public Transaction next(LocalDateTime timestamp) {
+        return of("acct-" + random.nextInt(senders), "rcv-" + random.nextInt(receivers), timestamp);
+    }
+
+    public static Transaction of(String sender, String receiver, LocalDateTime timestamp) {
+        Transaction t = new Transaction(new BigDecimal("50.00"), sender, receiver, timestamp);
+        t.setChannel("APP");
+        t.setDeviceId("dev-" + sender);
+        t.setIpAddress("10.0.0.1");
+        t.setGeoLocation("BR");
+        t.setAuthAttempts(0);
+        return t;
+    }
+}
@@ -0,0 +1,465 @@
+package com.projeto.antifraud.loadtest;
+
+import com.projeto.antifraud.dto.TransactionRequest;
+import com.projeto.antifraud.loadtest.PostmanScenarios.Scenario;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+  Teste de carga do serviço em execução com o tráfego dos cenários do Postman
+  (TrafficMix) e curva de capacidade.
+  - Malha fechada: cada cliente (virtual thread) envia os passos de uma
+    instância de cenário em sequência, esperando cada resposta; cada etapa da
+    curva roda com um número de clientes (--clients), aquecimento e medição.
+  - Por etapa: vazão, percentis de latência (amostras exatas, ordenadas) por
+    código do veredito e por cenário, erros, e do /actuator/prometheus:
+    consultas ao banco por análise (antifraud.analysis.db.queries, tag code),
+    chamadas ao repositório por requisição e CPU do processo
+    (process.cpu.usage x system.cpu.count).
+  - Vazão conta só as respostas com veredito; as latências incluem as falhas.
+  - Capacidade: a etapa de maior vazão com p99 <= --slo-p99-ms e erros <= 1%;
+    vazão por núcleo do servidor e por núcleo ocupado. Curva em CSV (--out).
+  - Em malha fechada a latência é a vista pelos clientes sob aquela
+    concorrência (sem correção de coordinated omission); a vazão máxima é a
+    do joelho da curva. Gerador e serviço na mesma máquina disputam CPU: para
+    dimensionar, rode o gerador em outra máquina.
+  - Execução (serviço já no ar):
+      ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.projeto.antifraud.loadtest.LoadGenerator
+          -Djmh.args="--url http://localhost:8080 --clients 1,4,16,64 --duration 30"
+  - Opções: --url, --scenarios (Postman.txt), --mix ("1=90,Quantia alta=2";
+    índice a partir de 1 ou início do título; ausentes = peso 0; padrão: o
+    primeiro cenário com 90 e os demais dividindo 10), --accounts (1000000),
+    --receivers (5000000), --clients (1,2,4,8,16,32,64), --warmup (10 s),
+    --duration (30 s), --slo-p99-ms (50), --seed (42), --out
+    (target/load-curve.csv).
+*/
+public final class LoadGenerator {
+
+    private static final String ANALYZE = "/api/transactions/analyze";
+    private static final String PROMETHEUS = "/actuator/prometheus";
+    private static final String ERROR = "ERRO";
+    private static final int CPU_SAMPLES = 4;
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("url", "http://localhost:8080");
+        DEFAULTS.put("scenarios", "Postman.txt");
+        DEFAULTS.put("mix", "");
+        DEFAULTS.put("accounts", "1000000");
+        DEFAULTS.put("receivers", "5000000");
+        DEFAULTS.put("clients", "1,2,4,8,16,32,64");
+        DEFAULTS.put("warmup", "10");
+        DEFAULTS.put("duration", "30");
+        DEFAULTS.put("slo-p99-ms", "50");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("out", "target/load-curve.csv");
+    }
+
+    private final ObjectMapper mapper = JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final URI analyzeUri;
+    private final URI prometheusUri;
+    private final Duration warmup;
+    private final Duration duration;
+    private final double sloP99Micros;
+
+    // Campo lido da resposta (RiskVerdict)
+    record Verdict(String code) {
+    }
+
+    // Resultado de um código de veredito ou cenário em uma etapa
+    record Slice(long requests, double share, double p50Micros, double p99Micros, double dbQueriesPerAnalysis) {
+    }
+
+    record StepResult(int clients, long requests, long errors, double seconds, double tps,
+                      double p50Micros, double p90Micros, double p99Micros, double p999Micros, double maxMicros,
+                      double dbQueriesPerAnalysis, double repositoryCallsPerRequest,
+                      double cpuCoresBusy, double serverCores,
+                      Map<String, Slice> byCode, Map<String, Slice> byScenario) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    LoadGenerator(String url, Duration warmup, Duration duration, double sloP99Ms) {
+        this.analyzeUri = URI.create(url + ANALYZE);
+        this.prometheusUri = URI.create(url + PROMETHEUS);
+        this.warmup = warmup;
+        this.duration = duration;
+        this.sloP99Micros = sloP99Ms * 1_000;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        LoadGenerator generator = new LoadGenerator(options.get("url"),
+                Duration.ofSeconds(Long.parseLong(options.get("warmup"))),
+                Duration.ofSeconds(Long.parseLong(options.get("duration"))),
+                Double.parseDouble(options.get("slo-p99-ms")));
+
+        List<Scenario> scenarios = PostmanScenarios.read(Path.of(options.get("scenarios")), generator.mapper);
+        Map<String, Double> weights = weights(scenarios, options.get("mix"));
+        int[] clientSteps = Arrays.stream(options.get("clients").split(",")).map(String::trim)
+                .mapToInt(Integer::parseInt).sorted().toArray();
+        int accounts = Integer.parseInt(options.get("accounts"));
+        int receivers = Integer.parseInt(options.get("receivers"));
+        if (accounts < 2 * clientSteps[clientSteps.length - 1] || receivers < 16) {
+            throw new IllegalArgumentException("--accounts deve ser ao menos o dobro do maior --clients e --receivers >= 16");
+        }
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        TrafficMix mix = new TrafficMix(scenarios, weights, accounts, receivers, runId, LocalDate.now());
+
+        System.out.printf(Locale.ROOT, "Execução %s: %d cenário(s), %d contas, %d recebedores%n",
+                runId, scenarios.size(), accounts, receivers);
+        for (Scenario s : scenarios) {
+            System.out.printf(Locale.ROOT, "  %-45s passos=%d peso=%.1f%n", s.title(), s.steps().size(), weights.get(s.title()));
+        }
+
+        SplittableRandom seed = new SplittableRandom(Long.parseLong(options.get("seed")));
+        List<StepResult> curve = new ArrayList<>();
+        for (int clients : clientSteps) {
+            StepResult step = generator.runStep(mix, clients, seed);
+            curve.add(step);
+            print(step);
+        }
+        generator.printCapacity(curve);
+        writeCsv(Path.of(options.get("out")), curve);
+        System.out.println("Curva gravada em " + options.get("out"));
+    }
+
+    // Uma etapa: aquecimento, medição (com leituras do Prometheus no início, ao longo e no fim) e parada
+    StepResult runStep(TrafficMix mix, int clients, SplittableRandom seed) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicBoolean recording = new AtomicBoolean();
+        Recorder[] recorders = new Recorder[clients];
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int c = 0; c < clients; c++) {
+            Recorder recorder = recorders[c] = new Recorder();
+            SplittableRandom random = seed.split();
+            executor.submit(() -> client(mix, random, recorder, stop, recording));
+        }
+
+        Thread.sleep(warmup.toMillis());
+        PrometheusScrape before = scrape();
+        long start = System.nanoTime();
+        recording.set(true);
+        List<PrometheusScrape> cpu = new ArrayList<>();
+        long slice = duration.toMillis() / CPU_SAMPLES;
+        for (int i = 0; i < CPU_SAMPLES - 1; i++) {
+            Thread.sleep(slice);
+            cpu.add(scrape());
+        }
+        Thread.sleep(duration.toMillis() - slice * (CPU_SAMPLES - 1));
+        recording.set(false);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        PrometheusScrape after = scrape();
+        cpu.add(after);
+        stop.set(true);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        return summarize(clients, seconds, recorders, before, after, cpu);
+    }
+
+    private void client(TrafficMix mix, SplittableRandom random, Recorder recorder,
+                        AtomicBoolean stop, AtomicBoolean recording) {
+        while (!stop.get()) {
+            TrafficMix.Instance instance = mix.next(random);
+            try {
+                for (TransactionRequest request : instance.requests()) {
+                    if (stop.get()) {
+                        break;
+                    }
+                    long t0 = System.nanoTime();
+                    String code = send(request);
+                    long nanos = System.nanoTime() - t0;
+                    if (recording.get()) {
+                        recorder.record(code, instance.scenario().title(), nanos);
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+            } finally {
+                mix.release(instance);
+            }
+        }
+    }
+
+    // Código do veredito, "HTTP_<status>" ou ERRO (falha de conexão/tempo)
+    private String send(TransactionRequest request) {
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(analyzeUri)
+                            .timeout(Duration.ofSeconds(30))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(request)))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return "HTTP_" + response.statusCode();
+            }
+            String code = mapper.readValue(response.body(), Verdict.class).code();
+            return code != null ? code : ERROR;
+        } catch (IOException e) {
+            return ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ERROR;
+        }
+    }
+
+    private PrometheusScrape scrape() {
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(prometheusUri)
+                    .timeout(Duration.ofSeconds(10)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? PrometheusScrape.parse(response.body()) : PrometheusScrape.EMPTY;
+        } catch (IOException e) {
+            return PrometheusScrape.EMPTY;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PrometheusScrape.EMPTY;
+        }
+    }
+
+    private StepResult summarize(int clients, double seconds, Recorder[] recorders,
+                                 PrometheusScrape before, PrometheusScrape after, List<PrometheusScrape> cpu) {
+        Map<String, LongList> byCode = new TreeMap<>();
+        Map<String, LongList> byScenario = new LinkedHashMap<>();
+        LongList all = new LongList();
+        for (Recorder r : recorders) {
+            r.byCode.forEach((k, v) -> byCode.computeIfAbsent(k, x -> new LongList()).addAll(v));
+            r.byScenario.forEach((k, v) -> byScenario.computeIfAbsent(k, x -> new LongList()).addAll(v));
+            r.byCode.values().forEach(all::addAll);
+        }
+        all.sort();
+        long errors = byCode.entrySet().stream()
+                .filter(e -> e.getKey().equals(ERROR) || e.getKey().startsWith("HTTP_"))
+                .mapToLong(e -> e.getValue().size()).sum();
+
+        Map<String, Double> querySum = delta(before.sumBy("antifraud_analysis_db_queries_sum", "code"),
+                after.sumBy("antifraud_analysis_db_queries_sum", "code"));
+        Map<String, Double> queryCount = delta(before.sumBy("antifraud_analysis_db_queries_count", "code"),
+                after.sumBy("antifraud_analysis_db_queries_count", "code"));
+        double totalQueries = querySum.values().stream().mapToDouble(Double::doubleValue).sum();
+        double totalAnalyses = queryCount.values().stream().mapToDouble(Double::doubleValue).sum();
+        double repositoryCalls = after.sum("antifraud_repository_calls_seconds_count")
+                - before.sum("antifraud_repository_calls_seconds_count");
+
+        Map<String, Slice> codes = new LinkedHashMap<>();
+        byCode.forEach((code, latencies) -> {
+            double count = queryCount.getOrDefault(code, 0.0);
+            codes.put(code, slice(latencies, all.size(),
+                    count > 0 ? querySum.getOrDefault(code, 0.0) / count : Double.NaN));
+        });
+        Map<String, Slice> scenarios = new LinkedHashMap<>();
+        byScenario.forEach((title, latencies) -> scenarios.put(title, slice(latencies, all.size(), Double.NaN)));
+
+        double cpuUsage = cpu.stream().filter(s -> !s.isEmpty())
+                .mapToDouble(s -> s.sum("process_cpu_usage")).average().orElse(Double.NaN);
+        double serverCores = after.isEmpty() ? Double.NaN : after.sum("system_cpu_count");
+
+        return new StepResult(clients, all.size(), errors, seconds, (all.size() - errors) / seconds,
+                micros(all.percentile(0.50)), micros(all.percentile(0.90)), micros(all.percentile(0.99)),
+                micros(all.percentile(0.999)), micros(all.percentile(1.0)),
+                totalAnalyses > 0 ? totalQueries / totalAnalyses : Double.NaN,
+                all.size() > 0 && !after.isEmpty() ? repositoryCalls / all.size() : Double.NaN,
+                cpuUsage * serverCores, serverCores, codes, scenarios);
+    }
+
+    private static Slice slice(LongList latencies, long total, double dbQueries) {
+        latencies.sort();
+        return new Slice(latencies.size(), total == 0 ? 0 : (double) latencies.size() / total,
+                micros(latencies.percentile(0.50)), micros(latencies.percentile(0.99)), dbQueries);
+    }
+
+    private static Map<String, Double> delta(Map<String, Double> before, Map<String, Double> after) {
+        Map<String, Double> result = new HashMap<>();
+        after.forEach((k, v) -> result.put(k, v - before.getOrDefault(k, 0.0)));
+        return result;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+
+    private static void print(StepResult s) {
+        System.out.printf(Locale.ROOT, "%nclientes=%d  req=%d  erros=%d (%.2f%%)  vazão=%.1f tps  "
+                        + "latência p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f máx=%.2f ms%n",
+                s.clients(), s.requests(), s.errors(), s.errorRate() * 100, s.tps(),
+                s.p50Micros() / 1e3, s.p90Micros() / 1e3, s.p99Micros() / 1e3, s.p999Micros() / 1e3, s.maxMicros() / 1e3);
+        System.out.printf(Locale.ROOT, "  banco: %.2f consulta(s)/análise, %.2f chamada(s) ao repositório/req;  "
+                        + "CPU do serviço: %.2f de %.0f núcleo(s)%n",
+                s.dbQueriesPerAnalysis(), s.repositoryCallsPerRequest(), s.cpuCoresBusy(), s.serverCores());
+        System.out.printf(Locale.ROOT, "  %-22s %9s %7s %10s %10s %12s%n", "veredito", "req", "%", "p50 ms", "p99 ms", "consultas/an");
+        s.byCode().forEach((code, v) -> System.out.printf(Locale.ROOT, "  %-22s %9d %6.2f%% %10.2f %10.2f %12.2f%n",
+                code, v.requests(), v.share() * 100, v.p50Micros() / 1e3, v.p99Micros() / 1e3, v.dbQueriesPerAnalysis()));
+        System.out.printf(Locale.ROOT, "  %-45s %9s %7s %10s %10s%n", "cenário", "req", "%", "p50 ms", "p99 ms");
+        s.byScenario().forEach((title, v) -> System.out.printf(Locale.ROOT, "  %-45s %9d %6.2f%% %10.2f %10.2f%n",
+                title, v.requests(), v.share() * 100, v.p50Micros() / 1e3, v.p99Micros() / 1e3));
+    }
+
+    // Maior vazão dentro do SLO: capacidade da instância e por núcleo
+    void printCapacity(List<StepResult> curve) {
+        StepResult best = null;
+        for (StepResult s : curve) {
+            if (s.p99Micros() <= sloP99Micros && s.errorRate() <= 0.01 && (best == null || s.tps() > best.tps())) {
+                best = s;
+            }
+        }
+        System.out.println();
+        if (best == null) {
+            System.out.printf(Locale.ROOT, "Nenhuma etapa dentro do SLO (p99 <= %.0f ms, erros <= 1%%)%n", sloP99Micros / 1e3);
+            return;
+        }
+        System.out.printf(Locale.ROOT, "Capacidade sustentável (p99 <= %.0f ms, erros <= 1%%): %.1f tps com %d cliente(s)%n",
+                sloP99Micros / 1e3, best.tps(), best.clients());
+        System.out.printf(Locale.ROOT, "  por núcleo do servidor (%.0f): %.1f tps;  por núcleo ocupado (%.2f): %.1f tps%n",
+                best.serverCores(), best.tps() / best.serverCores(), best.cpuCoresBusy(), best.tps() / best.cpuCoresBusy());
+    }
+
+    private static void writeCsv(Path out, List<StepResult> curve) throws IOException {
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out))) {
+            w.println("clients,requests,errors,seconds,tps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,"
+                    + "db_queries_per_analysis,repository_calls_per_request,cpu_cores_busy,server_cores,"
+                    + "tps_per_core,tps_per_busy_core");
+            for (StepResult s : curve) {
+                w.printf(Locale.ROOT, "%d,%d,%d,%.3f,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.0f,%.2f,%.2f%n",
+                        s.clients(), s.requests(), s.errors(), s.seconds(), s.tps(),
+                        s.p50Micros() / 1e3, s.p90Micros() / 1e3, s.p99Micros() / 1e3, s.p999Micros() / 1e3,
+                        s.maxMicros() / 1e3, s.dbQueriesPerAnalysis(), s.repositoryCallsPerRequest(),
+                        s.cpuCoresBusy(), s.serverCores(), s.tps() / s.serverCores(), s.tps() / s.cpuCoresBusy());
+            }
+        }
+    }
+
+    // --chave valor; chaves desconhecidas são erro
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i += 2) {
+            String key = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+            if (!DEFAULTS.containsKey(key) || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Opção inválida: " + args[i] + " (opções: " + DEFAULTS.keySet() + ")");
+            }
+            options.put(key, args[i + 1]);
+        }
+        return options;
+    }
+
+    // Pesos por título: "índice=peso" (a partir de 1) ou "início do título=peso"
+    static Map<String, Double> weights(List<Scenario> scenarios, String spec) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            for (int i = 0; i < scenarios.size(); i++) {
+                weights.put(scenarios.get(i).title(), i == 0 ? 90.0 : 10.0 / Math.max(1, scenarios.size() - 1));
+            }
+            return weights;
+        }
+        scenarios.forEach(s -> weights.put(s.title(), 0.0));
+        for (String entry : spec.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Peso inválido em --mix: " + entry.trim());
+            }
+            String key = entry.substring(0, eq).trim();
+            double weight = Double.parseDouble(entry.substring(eq + 1).trim());
+            Scenario match = null;
+            if (key.chars().allMatch(Character::isDigit)) {
+                int index = Integer.parseInt(key) - 1;
+                match = index >= 0 && index < scenarios.size() ? scenarios.get(index) : null;
+            } else {
+                for (Scenario s : scenarios) {
+                    if (s.title().toLowerCase(Locale.ROOT).startsWith(key.toLowerCase(Locale.ROOT))) {
+                        match = s;
+                        break;
+                    }
+                }
+            }
+            if (match == null) {
+                throw new IllegalArgumentException("Cenário não encontrado em --mix: " + key);
+            }
+            weights.put(match.title(), weight);
+        }
+        return weights;
+    }
+
+    // Latências de um cliente por código e por cenário (uma thread por Recorder)
+    private static final class Recorder {
+        final Map<String, LongList> byCode = new HashMap<>();
+        final Map<String, LongList> byScenario = new LinkedHashMap<>();
+
+        void record(String code, String scenario, long nanos) {
+            byCode.computeIfAbsent(code, k -> new LongList()).add(nanos);
+            byScenario.computeIfAbsent(scenario, k -> new LongList()).add(nanos);
+        }
+    }
+
+    // Lista de long sem boxing; percentis pelo método do posto mais próximo (após sort)
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        int size() {
+            return size;
+        }
+
+        long percentile(double p) {
+            if (size == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * size);
+            return values[Math.max(0, Math.min(size, rank) - 1)];
+        }
+    }
+}
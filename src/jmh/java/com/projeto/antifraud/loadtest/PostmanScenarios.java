@@ -0,0 +1,102 @@
+package com.projeto.antifraud.loadtest;
+
+import com.projeto.antifraud.dto.TransactionRequest;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Cenários escritos à mão em Postman.txt.
+  - Formato: uma linha de título seguida de um ou mais objetos JSON (corpo de
+    POST /api/transactions/analyze); os objetos de um cenário são os passos,
+    na ordem, do mesmo remetente.
+  - Texto fora de objetos JSON abre um novo cenário; linhas em branco entre
+    objetos não.
+  - Campos que o TransactionRequest não conhece são ignorados pelo mapper
+    recebido.
+*/
+public final class PostmanScenarios {
+
+    public record Scenario(String title, List<TransactionRequest> steps) {
+    }
+
+    private PostmanScenarios() {
+    }
+
+    public static List<Scenario> read(Path path, ObjectMapper mapper) throws IOException {
+        return parse(Files.readString(path, StandardCharsets.UTF_8), mapper);
+    }
+
+    static List<Scenario> parse(String text, ObjectMapper mapper) {
+        List<Scenario> scenarios = new ArrayList<>();
+        StringBuilder title = new StringBuilder();
+        StringBuilder json = new StringBuilder();
+        List<TransactionRequest> steps = null;
+        String currentTitle = null;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (depth == 0 && c != '{') {
+                title.append(c);
+                continue;
+            }
+            if (depth == 0) {
+                String t = clean(title);
+                title.setLength(0);
+                if (!t.isEmpty() || steps == null) {
+                    if (steps != null) {
+                        scenarios.add(new Scenario(currentTitle, List.copyOf(steps)));
+                    }
+                    currentTitle = t.isEmpty() ? "cenário " + (scenarios.size() + 1) : t;
+                    steps = new ArrayList<>();
+                }
+            }
+            json.append(c);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                steps.add(toRequest(json.toString(), currentTitle, mapper));
+                json.setLength(0);
+            }
+        }
+        if (depth != 0) {
+            throw new IllegalArgumentException("JSON incompleto no cenário \"" + currentTitle + "\"");
+        }
+        if (steps != null) {
+            scenarios.add(new Scenario(currentTitle, List.copyOf(steps)));
+        }
+        return scenarios;
+    }
+
+    private static TransactionRequest toRequest(String json, String title, ObjectMapper mapper) {
+        TransactionRequest request = mapper.readValue(json, TransactionRequest.class);
+        if (request.amount() == null || request.senderAccountId() == null || request.timestamp() == null) {
+            throw new IllegalArgumentException("Passo sem amount/senderAccountId/timestamp no cenário \"" + title + "\"");
+        }
+        return request;
+    }
+
+    // Título em uma linha, sem pontuação final
+    private static String clean(StringBuilder title) {
+        String t = title.toString().strip().replaceAll("\\s+", " ");
+        return t.endsWith(".") ? t.substring(0, t.length() - 1).strip() : t;
+    }
+}
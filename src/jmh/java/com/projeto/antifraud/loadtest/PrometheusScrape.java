@@ -0,0 +1,87 @@
+package com.projeto.antifraud.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+  Leitura de /actuator/prometheus (formato texto).
+  - Só as amostras: nome, rótulos e valor; comentários (# HELP / # TYPE) são
+    ignorados.
+  - Contadores são comparados entre duas leituras (delta) para medir só o
+    intervalo da etapa de carga.
+*/
+record PrometheusScrape(List<Sample> samples) {
+
+    static final PrometheusScrape EMPTY = new PrometheusScrape(List.of());
+
+    private static final Pattern LABEL = Pattern.compile("(\\w+)=\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    record Sample(String name, Map<String, String> labels, double value) {
+    }
+
+    static PrometheusScrape parse(String text) {
+        List<Sample> samples = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int brace = line.indexOf('{');
+            int space = line.lastIndexOf(' ');
+            if (space < 0) {
+                continue;
+            }
+            Map<String, String> labels = new HashMap<>();
+            String name;
+            if (brace >= 0 && brace < space) {
+                name = line.substring(0, brace);
+                Matcher m = LABEL.matcher(line.substring(brace + 1, line.lastIndexOf('}')));
+                while (m.find()) {
+                    labels.put(m.group(1), m.group(2));
+                }
+            } else {
+                name = line.substring(0, line.indexOf(' '));
+            }
+            try {
+                samples.add(new Sample(name, labels, Double.parseDouble(line.substring(space + 1))));
+            } catch (NumberFormatException e) {
+                // Valor com timestamp ou formato desconhecido: amostra ignorada
+            }
+        }
+        return new PrometheusScrape(samples);
+    }
+
+    double sum(String name, Predicate<Map<String, String>> filter) {
+        double total = 0;
+        for (Sample s : samples) {
+            if (s.name().equals(name) && filter.test(s.labels())) {
+                total += s.value();
+            }
+        }
+        return total;
+    }
+
+    double sum(String name) {
+        return sum(name, labels -> true);
+    }
+
+    // Soma por valor de um rótulo (ex.: code -> consultas)
+    Map<String, Double> sumBy(String name, String label) {
+        Map<String, Double> result = new HashMap<>();
+        for (Sample s : samples) {
+            if (s.name().equals(name) && s.labels().containsKey(label)) {
+                result.merge(s.labels().get(label), s.value(), Double::sum);
+            }
+        }
+        return result;
+    }
+
+    boolean isEmpty() {
+        return samples.isEmpty();
+    }
+}
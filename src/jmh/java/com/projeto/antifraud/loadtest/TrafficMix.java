@@ -0,0 +1,196 @@
+package com.projeto.antifraud.loadtest;
+
+import com.projeto.antifraud.dto.TransactionRequest;
+import com.projeto.antifraud.loadtest.PostmanScenarios.Scenario;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+  Tráfego sintético a partir dos cenários do Postman.
+  - Cada instância sorteia um cenário pelo peso e um remetente entre
+    "accounts" contas; os passos do cenário viram requisições desse remetente,
+    na ordem, com os mesmos valores, horários do dia e intervalos entre passos.
+  - Identificadores do modelo são trocados: recebedores sorteados entre
+    "receivers" contas (distintos dentro da instância); dispositivo, IP,
+    geolocalização e canal seguem o perfil da conta no primeiro valor do
+    cenário e recebem valores novos nos demais (a mudança continua sendo
+    uma mudança). O perfil guarda os últimos valores usados.
+  - Cada instância de uma conta cai em um dia seguinte ao da anterior: janelas
+    de velocidade e última transação não misturam instâncias; e uma conta só é
+    usada por um cliente por vez.
+  - Contas da execução levam o prefixo runId: execuções repetidas contra o
+    mesmo serviço não herdam o estado de risco uma da outra; recebedores são
+    compartilhados entre execuções (recebedor conhecido como em produção).
+*/
+final class TrafficMix {
+
+    private static final List<String> GEOS = List.of("BR", "US", "AR", "PT", "CL", "UY", "MX", "ES");
+    private static final List<String> CHANNELS = List.of("APP", "PHONE", "WEB", "ATM", "BRANCH");
+
+    private final List<Scenario> scenarios;
+    private final double[] cumulative;
+    private final int accounts;
+    private final int receivers;
+    private final String runId;
+    private final LocalDate baseDate;
+
+    private final AtomicIntegerArray busy;
+    private final Profile[] profiles;
+    private final AtomicLong fresh = new AtomicLong();
+
+    // Uma instância de cenário pronta para envio; release() devolve a conta
+    record Instance(Scenario scenario, int account, List<TransactionRequest> requests) {
+    }
+
+    // Estado da conta entre instâncias (acesso só com a conta reservada)
+    private static final class Profile {
+        int day;
+        String device;
+        String ip;
+        String geo = "BR";
+        String channel = "APP";
+    }
+
+    TrafficMix(List<Scenario> scenarios, Map<String, Double> weights, int accounts, int receivers,
+               String runId, LocalDate baseDate) {
+        this.scenarios = scenarios;
+        this.cumulative = new double[scenarios.size()];
+        double total = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            total += weights.getOrDefault(scenarios.get(i).title(), 0.0);
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Nenhum cenário com peso positivo");
+        }
+        this.accounts = accounts;
+        this.receivers = receivers;
+        this.runId = runId;
+        this.baseDate = baseDate;
+        this.busy = new AtomicIntegerArray(accounts);
+        this.profiles = new Profile[accounts];
+    }
+
+    List<Scenario> scenarios() {
+        return scenarios;
+    }
+
+    Instance next(SplittableRandom random) {
+        double pick = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = 0;
+        while (cumulative[index] <= pick) {
+            index++;
+        }
+        Scenario scenario = scenarios.get(index);
+        int account;
+        do {
+            account = random.nextInt(accounts);
+        } while (!busy.compareAndSet(account, 0, 1));
+        return new Instance(scenario, account, materialize(scenario, account, random));
+    }
+
+    void release(Instance instance) {
+        busy.set(instance.account(), 0);
+    }
+
+    private List<TransactionRequest> materialize(Scenario scenario, int account, SplittableRandom random) {
+        Profile profile = profiles[account];
+        if (profile == null) {
+            profile = new Profile();
+            profile.device = "lt-dev-" + runId + "-" + account;
+            profile.ip = "10." + (account >>> 16 & 0xff) + "." + (account >>> 8 & 0xff) + "." + (account & 0xff);
+            profiles[account] = profile;
+        }
+        String sender = "lt-" + runId + "-acct-" + account;
+        LocalDateTime first = scenario.steps().get(0).timestamp();
+        LocalDateTime start = baseDate.plusDays(profile.day++).atTime(first.toLocalTime());
+
+        Map<String, String> receiverIds = new HashMap<>();
+        Set<String> usedReceivers = new HashSet<>();
+        Remap devices = new Remap(profile.device);
+        Remap ips = new Remap(profile.ip);
+        Remap geos = new Remap(profile.geo);
+        Remap channels = new Remap(profile.channel);
+
+        List<TransactionRequest> requests = new ArrayList<>(scenario.steps().size());
+        for (TransactionRequest step : scenario.steps()) {
+            String receiver = step.receiverAccountId() == null ? null
+                    : receiverIds.computeIfAbsent(step.receiverAccountId(), k -> {
+                        String r;
+                        do {
+                            r = "lt-rcv-" + random.nextInt(receivers);
+                        } while (!usedReceivers.add(r));
+                        return r;
+                    });
+            String device = devices.map(step.deviceId(), () -> "lt-dev-" + runId + "-n" + fresh.incrementAndGet());
+            String ip = ips.map(step.ipAddress(), () -> {
+                long n = fresh.incrementAndGet();
+                return "172." + (16 + (n >>> 16 & 0x0f)) + "." + (n >>> 8 & 0xff) + "." + (n & 0xff);
+            });
+            String geo = geos.map(step.geoLocation(), () -> alternative(GEOS, geos.used, step.geoLocation()));
+            String channel = channels.map(step.channel(), () -> alternative(CHANNELS, channels.used, step.channel()));
+            LocalDateTime ts = start.plus(Duration.between(first, step.timestamp()));
+
+            requests.add(new TransactionRequest(step.amount(), step.currency(), sender, receiver, "lt-cust-" + runId + "-" + account,
+                    channel, device, ip, geo, step.authAttempts(), ts, step.customerSegment()));
+            profile.device = device != null ? device : profile.device;
+            profile.ip = ip != null ? ip : profile.ip;
+            profile.geo = geo != null ? geo : profile.geo;
+            profile.channel = channel != null ? channel : profile.channel;
+        }
+        return requests;
+    }
+
+    // Valor do modelo que ainda não foi usado nesta instância, senão o primeiro livre da lista
+    private static String alternative(List<String> candidates, Set<String> used, String templateValue) {
+        if (templateValue != null && !used.contains(templateValue)) {
+            return templateValue;
+        }
+        for (String c : candidates) {
+            if (!used.contains(c)) {
+                return c;
+            }
+        }
+        return templateValue + "-" + used.size();
+    }
+
+    /*
+      Troca de um atributo dentro da instância: o primeiro valor do modelo vira
+      o valor atual do perfil; cada outro valor distinto vira um valor novo.
+    */
+    private static final class Remap {
+        private final String current;
+        private final Map<String, String> mapping = new HashMap<>();
+        final Set<String> used = new HashSet<>();
+
+        Remap(String current) {
+            this.current = current;
+            used.add(current);
+        }
+
+        String map(String templateValue, Supplier<String> freshValue) {
+            if (templateValue == null) {
+                return null;
+            }
+            String mapped = mapping.get(templateValue);
+            if (mapped == null) {
+                mapped = mapping.isEmpty() ? current : freshValue.get();
+                mapping.put(templateValue, mapped);
+                used.add(mapped);
+            }
+            return mapped;
+        }
+    }
+}
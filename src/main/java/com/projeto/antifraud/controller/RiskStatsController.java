@@ -0,0 +1,93 @@
+package com.projeto.antifraud.controller;
+
+import com.projeto.antifraud.service.LastSeenCache;
+import com.projeto.antifraud.service.RiskAnalysisService;
+import com.projeto.antifraud.service.RiskContextLoader;
+import com.projeto.antifraud.service.backtest.BacktestReport;
+import com.projeto.antifraud.service.backtest.BacktestRunner;
+import com.projeto.antifraud.service.rule.RiskThresholdsRegistry;
+import com.projeto.antifraud.service.rule.RuleEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/risk")
+public class RiskStatsController {
+
+    @Autowired
+    private RiskContextLoader riskContextLoader;
+
+    @Autowired
+    private RuleEngine ruleEngine;
+
+    @Autowired
+    private LastSeenCache lastSeenCache;
+
+    @Autowired
+    private BacktestRunner backtestRunner;
+
+    @Autowired
+    private RiskThresholdsRegistry thresholdsRegistry;
+
+    // Estatísticas do carregamento de contexto (consultas ao banco e tempo médio por requisição)
+    // Método: GET
+    // URL: http://localhost:8080/api/risk/stats
+    @GetMapping("/stats")
+    public RiskContextLoader.Stats stats() {
+        return riskContextLoader.stats();
+    }
+
+    // Métricas por regra, na ordem de execução atual (latência média/p99, acertos, vezes pulada)
+    // Método: GET
+    // URL: http://localhost:8080/api/risk/rules
+    @GetMapping("/rules")
+    public List<RuleEngine.RuleSnapshot> rules() {
+        return ruleEngine.stats();
+    }
+
+    // Cache da última transação por remetente (tamanho, acertos, faltas, remoções)
+    // Método: GET
+    // URL: http://localhost:8080/api/risk/cache/last-seen
+    @GetMapping("/cache/last-seen")
+    public LastSeenCache.Stats lastSeenCache() {
+        return lastSeenCache.stats();
+    }
+
+    // Limites das regras em vigor: versão, origem, padrões e overrides por canal/segmento
+    // Método: GET
+    // URL: http://localhost:8080/api/risk/thresholds
+    @GetMapping("/thresholds")
+    public RiskThresholdsRegistry.Info thresholds() {
+        return thresholdsRegistry.info();
+    }
+
+    // Relê o arquivo de limites agora; se for inválido, a versão anterior continua e lastError explica
+    // Método: POST
+    // URL: http://localhost:8080/api/risk/thresholds/reload
+    @PostMapping("/thresholds/reload")
+    public RiskThresholdsRegistry.Info reloadThresholds() {
+        return thresholdsRegistry.reload();
+    }
+
+    // Backtest: reprocessa as transações gravadas em [from, to) sem gravar nada e compara com os vereditos armazenados
+    // Método: POST
+    // URL: http://localhost:8080/api/risk/backtest?from=2025-11-01T00:00:00&to=2025-12-01T00:00:00&mode=SCORING
+    // Parâmetros opcionais: from (padrão: início), to (padrão: agora), mode (padrão: o configurado), pageSize
+    // Só a tabela quente: com a retenção ligada, o que for anterior a archivedBefore (no relatório) fica fora
+    @PostMapping("/backtest")
+    public BacktestReport backtest(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) RiskAnalysisService.Mode mode,
+            @RequestParam(required = false) Integer pageSize) {
+        return backtestRunner.run(from, to, mode, pageSize);
+    }
+}
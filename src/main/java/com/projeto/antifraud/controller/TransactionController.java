@@ -1,9 +1,20 @@
 package com.projeto.antifraud.controller;
 
+import com.projeto.antifraud.dto.RiskVerdict;
+import com.projeto.antifraud.dto.TransactionRequest;
 import com.projeto.antifraud.entity.Transaction;
 import com.projeto.antifraud.service.RiskAnalysisService;
+import com.projeto.antifraud.service.StreamAnalyzer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/transactions") 
@@ -12,11 +23,56 @@ public class TransactionController {
     @Autowired
     private RiskAnalysisService riskAnalysisService;
 
+    @Autowired
+    private StreamAnalyzer streamAnalyzer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Endpoint para analizar una transacción nueva
     // Método: POST
     // URL: http://localhost:8080/api/transactions/analyze
+    // Corpo: TransactionRequest; resposta: RiskVerdict (não a entidade gravada)
     @PostMapping("/analyze")
-    public Transaction analyzeTransaction(@RequestBody Transaction transaction) {
-        return riskAnalysisService.analyzeTransaction(transaction);
+    public RiskVerdict analyzeTransaction(@RequestBody TransactionRequest request) {
+        return RiskVerdict.of(riskAnalysisService.analyzeTransaction(request.toEntity()));
+    }
+
+    // Endpoint para analisar um lote de transações (arquivo de liquidação)
+    // Método: POST
+    // URL: http://localhost:8080/api/transactions/analyze/batch
+    // Corpo: lista JSON (application/json) ou uma transação por linha (application/x-ndjson)
+    @PostMapping(value = "/analyze/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<RiskVerdict> analyzeBatch(@RequestBody List<TransactionRequest> requests) {
+        return analyze(requests);
+    }
+
+    @PostMapping(value = "/analyze/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<RiskVerdict> analyzeBatchNdjson(InputStream body) {
+        try (MappingIterator<TransactionRequest> it = objectMapper.readerFor(TransactionRequest.class).readValues(body)) {
+            return analyze(it.readAll());
+        }
+    }
+
+    // Endpoint de fluxo: uma transação por linha na entrada, um veredicto por linha na saída,
+    // na mesma ordem e à medida que são decididos (sem acumular o corpo nem a resposta)
+    // Método: POST
+    // URL: http://localhost:8080/api/transactions/analyze/stream
+    @PostMapping(value = "/analyze/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody analyzeStream(InputStream body) {
+        return out -> streamAnalyzer.analyze(body, out);
+    }
+
+    private List<RiskVerdict> analyze(List<TransactionRequest> requests) {
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        for (TransactionRequest r : requests) {
+            transactions.add(r.toEntity());
+        }
+        List<RiskVerdict> verdicts = new ArrayList<>(transactions.size());
+        for (Transaction t : riskAnalysisService.analyzeBatch(transactions)) {
+            verdicts.add(RiskVerdict.of(t));
+        }
+        return verdicts;
     }
-}
\ No newline at end of file
+}
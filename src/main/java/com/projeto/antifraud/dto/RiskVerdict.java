@@ -0,0 +1,24 @@
+package com.projeto.antifraud.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.projeto.antifraud.entity.RiskContribution;
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+
+import java.util.List;
+
+/*
+  Resposta compacta de uma análise: id gravado, decisão, código e mensagem.
+  - transactionId é null em write-behind até o bloco ser gravado.
+  - score e contributions só aparecem no modo de pontuação.
+*/
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RiskVerdict(Long transactionId, boolean suspicious, String status, RiskReason code, String reason,
+                          Integer score, List<RiskContribution> contributions) {
+
+    public static RiskVerdict of(Transaction transaction) {
+        return new RiskVerdict(transaction.getId(), transaction.isSuspicious(), transaction.getStatus(),
+                transaction.getRiskCode(), transaction.getRiskReason(),
+                transaction.getRiskScore(), transaction.getRiskContributions());
+    }
+}
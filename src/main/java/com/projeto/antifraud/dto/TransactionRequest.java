@@ -0,0 +1,42 @@
+package com.projeto.antifraud.dto;
+
+import com.projeto.antifraud.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+  Corpo de uma requisição de análise.
+  - Imutável e sem anotações JPA: o JSON não é mais ligado direto à entidade
+    (id, status, suspeita e auditoria não podem vir do cliente).
+  - toEntity cria a Transaction que será analisada e gravada.
+  - customerSegment (opcional): segmento do cliente, usado só para escolher
+    os limites das regras; não é gravado.
+*/
+public record TransactionRequest(
+        BigDecimal amount,
+        String currency,
+        String senderAccountId,
+        String receiverAccountId,
+        String customerId,
+        String channel,
+        String deviceId,
+        String ipAddress,
+        String geoLocation,
+        Integer authAttempts,
+        LocalDateTime timestamp,
+        String customerSegment) {
+
+    public Transaction toEntity() {
+        Transaction t = new Transaction(amount, senderAccountId, receiverAccountId, timestamp);
+        t.setCurrency(currency);
+        t.setCustomerId(customerId);
+        t.setChannel(channel);
+        t.setDeviceId(deviceId);
+        t.setIpAddress(ipAddress);
+        t.setGeoLocation(geoLocation);
+        t.setAuthAttempts(authAttempts);
+        t.setCustomerSegment(customerSegment);
+        return t;
+    }
+}
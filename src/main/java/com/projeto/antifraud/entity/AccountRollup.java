@@ -0,0 +1,103 @@
+package com.projeto.antifraud.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+  Resumo compacto do histórico arquivado de uma conta remetente.
+  - Atualizado pela compactação (RetentionCompactor) ao mover transações
+    antigas para o arquivo: cobre só o que saiu da tabela quente; o total da
+    conta é este resumo mais as linhas ainda em transactions.
+  - firstSeen / lastSeen, contagens e montante acumulado.
+  - lastChannel / lastDeviceId / lastGeoLocation: a última transação
+    arquivada, usada pelas regras de canal/dispositivo/geo quando a conta não
+    tem mais linhas na tabela quente.
+*/
+@Entity
+@Table(name = "account_rollups")
+public class AccountRollup implements Persistable<String> {
+
+    @Id
+    private String senderAccountId;
+
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+    private long transactionCount;
+    private long suspiciousCount;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    private String lastChannel;
+    private String lastDeviceId;
+    private String lastGeoLocation;
+
+    @Transient
+    private boolean isNew = true;  // id atribuído: sem isto o saveAll faria um SELECT (merge) por resumo novo
+
+    public AccountRollup() {}
+
+    public AccountRollup(String senderAccountId) {
+        this.senderAccountId = senderAccountId;
+    }
+
+    // Soma uma transação arquivada; a mais recente (por timestamp) define os campos "last"
+    public void record(LocalDateTime timestamp, BigDecimal amount, boolean suspicious,
+                       String channel, String deviceId, String geoLocation) {
+        transactionCount++;
+        if (suspicious) {
+            suspiciousCount++;
+        }
+        if (amount != null) {
+            totalAmount = totalAmount.add(amount);
+        }
+        if (timestamp == null) {
+            return;
+        }
+        if (firstSeen == null || timestamp.isBefore(firstSeen)) {
+            firstSeen = timestamp;
+        }
+        if (lastSeen == null || !timestamp.isBefore(lastSeen)) {
+            lastSeen = timestamp;
+            lastChannel = channel;
+            lastDeviceId = deviceId;
+            lastGeoLocation = geoLocation;
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return senderAccountId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters
+    public String getSenderAccountId() { return senderAccountId; }
+
+    public LocalDateTime getFirstSeen() { return firstSeen; }
+
+    public LocalDateTime getLastSeen() { return lastSeen; }
+
+    public long getTransactionCount() { return transactionCount; }
+
+    public long getSuspiciousCount() { return suspiciousCount; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+
+    public String getLastChannel() { return lastChannel; }
+
+    public String getLastDeviceId() { return lastDeviceId; }
+
+    public String getLastGeoLocation() { return lastGeoLocation; }
+}
@@ -0,0 +1,41 @@
+package com.projeto.antifraud.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/*
+  Identidade do banco: uma única linha criada na primeira inicialização.
+  - epoch aleatório: um banco recriado (ex.: H2 em memória) ganha outro valor.
+  - Gravado no cabeçalho do snapshot de estado; snapshot de outro banco é
+    descartado, em vez de pular transações na reaplicação por uma marca
+    d'água que não vale para este banco.
+*/
+@Entity
+@Table(name = "database_epoch")
+public class DatabaseEpoch {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    private long epoch;
+
+    private LocalDateTime createdAt;
+
+    public DatabaseEpoch() {}
+
+    public DatabaseEpoch(long epoch) {
+        this.id = SINGLETON_ID;
+        this.epoch = epoch;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Integer getId() { return id; }
+
+    public long getEpoch() { return epoch; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,71 @@
+package com.projeto.antifraud.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/*
+  Resumo compacto do histórico arquivado de uma conta recebedora.
+  - Atualizado pela compactação (RetentionCompactor), como AccountRollup.
+  - A existência da linha responde "este recebedor já apareceu" por chave
+    primária, sem depender do histórico que saiu da tabela quente.
+*/
+@Entity
+@Table(name = "receiver_rollups")
+public class ReceiverRollup implements Persistable<String> {
+
+    @Id
+    private String receiverAccountId;
+
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+    private long transactionCount;
+
+    @Transient
+    private boolean isNew = true;  // id atribuído: sem isto o saveAll faria um SELECT (merge) por resumo novo
+
+    public ReceiverRollup() {}
+
+    public ReceiverRollup(String receiverAccountId) {
+        this.receiverAccountId = receiverAccountId;
+    }
+
+    public void record(LocalDateTime timestamp) {
+        transactionCount++;
+        if (timestamp == null) {
+            return;
+        }
+        if (firstSeen == null || timestamp.isBefore(firstSeen)) {
+            firstSeen = timestamp;
+        }
+        if (lastSeen == null || timestamp.isAfter(lastSeen)) {
+            lastSeen = timestamp;
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return receiverAccountId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters
+    public String getReceiverAccountId() { return receiverAccountId; }
+
+    public LocalDateTime getFirstSeen() { return firstSeen; }
+
+    public LocalDateTime getLastSeen() { return lastSeen; }
+
+    public long getTransactionCount() { return transactionCount; }
+}
@@ -0,0 +1,8 @@
+package com.projeto.antifraud.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Sinal que contribuiu para a pontuação de uma transação (auditoria); detail só quando a regra o fornece
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RiskContribution(String rule, RiskReason reason, int weight, String detail) {
+}
@@ -0,0 +1,63 @@
+package com.projeto.antifraud.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+  Código do resultado da análise de risco, com a mensagem pré-montada.
+  - As regras retornam o código; a mensagem gravada em riskReason é sempre
+    uma destas constantes (nenhuma string montada por requisição).
+  - defaultWeight: peso do sinal no modo de pontuação (ScoringPolicy), se
+    não houver outro configurado.
+  - As mensagens não citam a duração das janelas (configuráveis por
+    canal/segmento); textos antigos continuam reconhecidos por fromMessage.
+*/
+public enum RiskReason {
+
+    APPROVED("Transação aprovada.", 0),
+    AUTH_ATTEMPTS("ALERTA: Múltiplas tentativas de autenticação falhadas.", 100),
+    PANIC_MODE("ALERTA: Possível ataque em modo pânico. Transações demais em curto período.", 80),
+    CHANNEL_CHANGE("Mudança de canal incomum em relação à última transação.", 25),
+    DEVICE_CHANGE("Dispositivo diferente do último registrado para a conta.", 35),
+    GEO_CHANGE("Alteração de geolocalização em relação à última transação.", 35),
+    MULTIPLE_RECEIVERS("Padrão suspeito: múltiplos recebedores distintos em curto período.", 45),
+    HIGH_AMOUNT("Atenção: O valor excede o limite normal.", 25),
+    HIGH_AMOUNT_NIGHT("ALERTA CRÍTICO: Transação de alto valor em horário atípico.", 60),
+    NEW_RECEIVER("Recebedor novo e montante elevado.", 40),
+    SHARED_DEVICE("ALERTA: Dispositivo usado por muitas contas distintas em curto período.", 70),
+    SHARED_IP("Endereço IP usado por muitas contas distintas em curto período.", 50),
+    LOOKUP_TIMEOUT("Análise incompleta: histórico indisponível no prazo. Encaminhada para revisão manual.", 0);
+
+    private static final Map<String, RiskReason> BY_MESSAGE = new HashMap<>();
+
+    static {
+        for (RiskReason reason : values()) {
+            BY_MESSAGE.put(reason.message, reason);
+        }
+        // Mensagens gravadas antes das janelas configuráveis
+        BY_MESSAGE.put("Padrão suspeito: múltiplos recebedores distintos em 1 hora.", MULTIPLE_RECEIVERS);
+        BY_MESSAGE.put("ALERTA: Dispositivo usado por muitas contas distintas em 1 hora.", SHARED_DEVICE);
+        BY_MESSAGE.put("Endereço IP usado por muitas contas distintas em 1 hora.", SHARED_IP);
+    }
+
+    private final String message;
+    private final int defaultWeight;
+
+    RiskReason(String message, int defaultWeight) {
+        this.message = message;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public int defaultWeight() {
+        return defaultWeight;
+    }
+
+    // Código de uma mensagem gravada em riskReason, ou null se não for uma das constantes (registros antigos)
+    public static RiskReason fromMessage(String message) {
+        return message != null ? BY_MESSAGE.get(message) : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.projeto.antifraud.entity;
+
+/*
+  Valores do campo status de Transaction.
+  - PENDING: ainda não decidida (ou decidida no modo primeira-regra).
+  - APPROVED / REVIEW / REJECTED: faixas de pontuação do modo de pontuação.
+*/
+public enum RiskStatus {
+    PENDING,
+    APPROVED,
+    REVIEW,
+    REJECTED
+}
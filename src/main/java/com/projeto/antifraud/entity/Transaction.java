@@ -4,22 +4,37 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
+import java.util.List;
 
 /*
   Entidade que representa uma transação.
   - Campos principais: amount, senderAccountId, receiverAccountId, timestamp.
   - Campos auxiliares para análise de risco: channel, deviceId, ipAddress, geoLocation, authAttempts.
   - Campos de auditoria: status, createdAt, updatedAt.
+  - Id por sequence com otimizador pooled (blocos de 50): o Hibernate só
+    agrupa INSERTs em lote JDBC quando o id não depende do INSERT (IDENTITY).
+  - Índices compostos (conta/IP + timestamp) atendem as consultas por janela
+    de tempo e a busca da última transação sem varrer a tabela; o índice
+    só por timestamp atende o aquecimento do motor de velocidade.
 */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_tx_sender_ts", columnList = "senderAccountId, timestamp"),
+        @Index(name = "idx_tx_receiver_ts", columnList = "receiverAccountId, timestamp"),
+        @Index(name = "idx_tx_ip_ts", columnList = "ipAddress, timestamp"),
+        @Index(name = "idx_tx_ts", columnList = "timestamp")
+})
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     private BigDecimal amount;
@@ -37,7 +52,19 @@ public class Transaction {
     private boolean isSuspicious;
     private String riskReason;
 
-    private String status;            // "PENDING","APPROVED","REJECTED"
+    @Transient
+    private RiskReason riskCode;      // código da decisão (não persistido; riskReason guarda a mensagem)
+
+    @Transient
+    private Integer riskScore;        // pontuação (apenas no modo de pontuação)
+
+    @Transient
+    private List<RiskContribution> riskContributions;  // sinais que somaram na pontuação (auditoria)
+
+    @Transient
+    private String customerSegment;   // segmento do cliente (ex.: "PF", "PJ"); escolhe os limites das regras
+
+    private String status;            // "PENDING","APPROVED","REVIEW","REJECTED" (RiskStatus)
     private LocalDateTime createdAt;  
     private LocalDateTime updatedAt;  
 
@@ -60,6 +87,9 @@ public class Transaction {
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
 
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
     public String getSenderAccountId() { return senderAccountId; }
     public void setSenderAccountId(String senderAccountId) { this.senderAccountId = senderAccountId; }
 
@@ -92,6 +122,14 @@ public class Transaction {
 
     public String getRiskReason() { return riskReason; }
     public void setRiskReason(String riskReason) { this.riskReason = riskReason; }
+    public RiskReason getRiskCode() { return riskCode; }
+    public void setRiskCode(RiskReason riskCode) { this.riskCode = riskCode; }
+    public Integer getRiskScore() { return riskScore; }
+    public void setRiskScore(Integer riskScore) { this.riskScore = riskScore; }
+    public List<RiskContribution> getRiskContributions() { return riskContributions; }
+    public void setRiskContributions(List<RiskContribution> riskContributions) { this.riskContributions = riskContributions; }
+    public String getCustomerSegment() { return customerSegment; }
+    public void setCustomerSegment(String customerSegment) { this.customerSegment = customerSegment; }
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -0,0 +1,72 @@
+package com.projeto.antifraud.metrics;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Métricas do caminho quente da análise (Micrometer).
+  - antifraud.analysis: latência ponta a ponta de analyzeTransaction
+    (fila do shard + regras + gravação), com histograma para percentis no
+    Prometheus; separada por decisão (suspicious=true/false).
+  - antifraud.analysis.batch / antifraud.analysis.batch.size: duração e
+    tamanho de cada lote.
+  - antifraud.analysis.db.queries: consultas ao banco por análise, por
+    código da decisão (tag code; o teste de carga compara os tipos de veredito).
+  - Medidores criados uma vez: o caminho quente só registra valores.
+*/
+@Component
+public class AnalysisMetrics {
+
+    private final Timer approved;
+    private final Timer suspicious;
+    private final Timer batch;
+    private final DistributionSummary batchSize;
+    private final Map<RiskReason, DistributionSummary> dbQueries = new EnumMap<>(RiskReason.class);
+
+    public AnalysisMetrics(MeterRegistry registry) {
+        this.approved = analysisTimer(registry, false);
+        this.suspicious = analysisTimer(registry, true);
+        this.batch = Timer.builder("antifraud.analysis.batch")
+                .description("Duração da análise de um lote")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("antifraud.analysis.batch.size")
+                .description("Transações por lote")
+                .register(registry);
+        for (RiskReason code : RiskReason.values()) {
+            dbQueries.put(code, DistributionSummary.builder("antifraud.analysis.db.queries")
+                    .description("Consultas ao banco por análise")
+                    .tag("code", code.name())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    public void recordAnalysis(Transaction transaction, long nanos) {
+        (transaction.isSuspicious() ? suspicious : approved).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatch(int size, long nanos) {
+        batch.record(nanos, TimeUnit.NANOSECONDS);
+        batchSize.record(size);
+    }
+
+    public void recordDbQueries(int queries, RiskReason code) {
+        dbQueries.get(code).record(queries);
+    }
+
+    private static Timer analysisTimer(MeterRegistry registry, boolean suspicious) {
+        return Timer.builder("antifraud.analysis")
+                .description("Latência ponta a ponta de analyzeTransaction")
+                .tag("suspicious", String.valueOf(suspicious))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,100 @@
+package com.projeto.antifraud.metrics;
+
+import com.projeto.antifraud.service.LastSeenCache;
+import com.projeto.antifraud.service.RiskContextLoader;
+import com.projeto.antifraud.service.ShardedAnalysisExecutor;
+import com.projeto.antifraud.service.SharedEntityIndex;
+import com.projeto.antifraud.service.VelocityEngine;
+import com.projeto.antifraud.service.persistence.TransactionWriter;
+import com.projeto.antifraud.service.rule.RiskRule;
+import com.projeto.antifraud.service.rule.RuleEngine;
+import com.projeto.antifraud.service.rule.RuleStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+  Expõe no Micrometer os contadores que os componentes já mantêm, sem
+  instrumentar o caminho quente de novo (lidos só na coleta).
+  - antifraud.rule.evaluations / hits / skipped e antifraud.rule.latency
+    (tag rule): RuleStats de cada regra.
+  - antifraud.cache.last_seen.*: tamanho, acertos, faltas e remoções do LastSeenCache.
+  - antifraud.writer.queue: fila write-behind; antifraud.shard.queue (tag shard):
+    fila de cada shard de análise.
+  - antifraud.velocity.accounts, antifraud.shared_entity.devices / ips:
+    estado em memória.
+  - antifraud.context.loads: contextos montados pelo RiskContextLoader.
+*/
+@Component
+public class AntifraudMeterBinder implements MeterBinder {
+
+    @Autowired
+    private RuleEngine ruleEngine;
+
+    @Autowired
+    private LastSeenCache lastSeenCache;
+
+    @Autowired
+    private TransactionWriter transactionWriter;
+
+    @Autowired
+    private ShardedAnalysisExecutor shardedAnalysisExecutor;
+
+    @Autowired
+    private VelocityEngine velocityEngine;
+
+    @Autowired
+    private SharedEntityIndex sharedEntityIndex;
+
+    @Autowired
+    private RiskContextLoader riskContextLoader;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RiskRule rule : ruleEngine.rules()) {
+            RuleStats stats = ruleEngine.statsFor(rule.name());
+            FunctionCounter.builder("antifraud.rule.evaluations", stats, RuleStats::evaluations)
+                    .description("Avaliações da regra").tag("rule", rule.name()).register(registry);
+            FunctionCounter.builder("antifraud.rule.hits", stats, RuleStats::hits)
+                    .description("Vezes em que a regra correspondeu").tag("rule", rule.name()).register(registry);
+            FunctionCounter.builder("antifraud.rule.skipped", stats, RuleStats::skipped)
+                    .description("Vezes em que a regra foi pulada").tag("rule", rule.name()).register(registry);
+            FunctionTimer.builder("antifraud.rule.latency", stats, RuleStats::evaluations,
+                            RuleStats::totalNanos, TimeUnit.NANOSECONDS)
+                    .description("Tempo de avaliação da regra").tag("rule", rule.name()).register(registry);
+        }
+
+        Gauge.builder("antifraud.cache.last_seen.size", lastSeenCache, c -> c.stats().size())
+                .description("Remetentes no LastSeenCache").register(registry);
+        FunctionCounter.builder("antifraud.cache.last_seen.hits", lastSeenCache, c -> c.stats().hits())
+                .register(registry);
+        FunctionCounter.builder("antifraud.cache.last_seen.misses", lastSeenCache, c -> c.stats().misses())
+                .register(registry);
+        FunctionCounter.builder("antifraud.cache.last_seen.evictions", lastSeenCache, c -> c.stats().evictions())
+                .register(registry);
+
+        Gauge.builder("antifraud.writer.queue", transactionWriter, TransactionWriter::queueDepth)
+                .description("Transações aguardando gravação write-behind").register(registry);
+        for (int i = 0; i < shardedAnalysisExecutor.shardCount(); i++) {
+            int shard = i;
+            Gauge.builder("antifraud.shard.queue", shardedAnalysisExecutor, e -> e.queueDepth(shard))
+                    .description("Tarefas na fila do shard de análise")
+                    .tag("shard", String.valueOf(shard)).register(registry);
+        }
+
+        Gauge.builder("antifraud.velocity.accounts", velocityEngine, VelocityEngine::trackedAccounts)
+                .description("Remetentes com janela de velocidade em memória").register(registry);
+        Gauge.builder("antifraud.shared_entity.devices", sharedEntityIndex, SharedEntityIndex::trackedDevices)
+                .register(registry);
+        Gauge.builder("antifraud.shared_entity.ips", sharedEntityIndex, SharedEntityIndex::trackedIps)
+                .register(registry);
+        FunctionCounter.builder("antifraud.context.loads", riskContextLoader, l -> l.stats().loads())
+                .description("Contextos de risco montados").register(registry);
+    }
+}
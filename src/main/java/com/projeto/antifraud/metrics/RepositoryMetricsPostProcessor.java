@@ -0,0 +1,145 @@
+package com.projeto.antifraud.metrics;
+
+import com.projeto.antifraud.repository.TransactionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/*
+  Instrumenta os repositórios da aplicação: cada método vira um par de medidores.
+  - Todo bean Repository cuja interface está no pacote
+    com.projeto.antifraud.repository (transações, resumos arquivados, época
+    do banco); a tag repository traz o nome da interface.
+  - antifraud.repository.calls (Timer, tags repository e method): duração da
+    chamada, com tag outcome=success/error.
+  - antifraud.repository.results (DistributionSummary, tags repository e method): linhas
+    devolvidas (tamanho da coleção; 0/1 para Optional ou entidade). Streams
+    não são medidos (consumir o stream para contar mudaria a chamada).
+  - O repositório é embrulhado por um proxy (ProxyFactory) na criação do
+    bean; MeterRegistry é obtido sob demanda para não antecipar a criação
+    dos beans de métricas.
+*/
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final String REPOSITORY_PACKAGE = TransactionRepository.class.getPackageName();
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String repository = bean instanceof Repository<?, ?> ? repositoryName(bean) : null;
+        if (repository == null) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.addAdvice(new TimingInterceptor(registry, repository));
+        return factory.getProxy();
+    }
+
+    // Interface do repositório declarada pela aplicação, ou null (repositórios de terceiros)
+    private static String repositoryName(Object bean) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(bean.getClass())) {
+            if (REPOSITORY_PACKAGE.equals(type.getPackageName()) && Repository.class.isAssignableFrom(type)) {
+                return type.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> registry;
+        private final String repository;
+        private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+        TimingInterceptor(ObjectProvider<MeterRegistry> registry, String repository) {
+            this.registry = registry;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            Meters m = meters.computeIfAbsent(method, k -> new Meters(registry.getObject(), repository, k.getName()));
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                m.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                int rows = rows(result);
+                if (rows >= 0) {
+                    m.results.record(rows);
+                }
+                return result;
+            } catch (Throwable e) {
+                m.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        // Linhas devolvidas, ou -1 quando o tipo não tem tamanho (stream, contagem, existência, void)
+        private static int rows(Object result) {
+            if (result instanceof Collection<?> collection) {
+                return collection.size();
+            }
+            if (result instanceof Optional<?> optional) {
+                return optional.isPresent() ? 1 : 0;
+            }
+            if (result == null || result instanceof Boolean || result instanceof Number
+                    || result instanceof BaseStream<?, ?>) {
+                return -1;
+            }
+            return 1;
+        }
+    }
+
+    private static final class Meters {
+        final Timer success;
+        final Timer error;
+        final DistributionSummary results;
+
+        Meters(MeterRegistry registry, String repository, String method) {
+            this.success = timer(registry, repository, method, "success");
+            this.error = timer(registry, repository, method, "error");
+            this.results = DistributionSummary.builder("antifraud.repository.results")
+                    .description("Linhas devolvidas por método do repositório")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private static Timer timer(MeterRegistry registry, String repository, String method, String outcome) {
+            return Timer.builder("antifraud.repository.calls")
+                    .description("Duração das chamadas ao repositório")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.projeto.antifraud.repository;
+
+import com.projeto.antifraud.entity.AccountRollup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/*
+  Repositório dos resumos por conta remetente (histórico arquivado).
+  - Última transação arquivada na mesma projeção LastSeenView da tabela
+    quente: busca por chave primária, custo constante.
+*/
+@Repository
+public interface AccountRollupRepository extends JpaRepository<AccountRollup, String> {
+
+    @Query("select a.senderAccountId as senderAccountId, a.lastChannel as channel, a.lastDeviceId as deviceId, "
+            + "a.lastGeoLocation as geoLocation, a.lastSeen as timestamp from AccountRollup a "
+            + "where a.senderAccountId = :sender")
+    Optional<LastSeenView> findLastSeenBySenderAccountId(@Param("sender") String senderAccountId);
+
+    @Query("select a.senderAccountId as senderAccountId, a.lastChannel as channel, a.lastDeviceId as deviceId, "
+            + "a.lastGeoLocation as geoLocation, a.lastSeen as timestamp from AccountRollup a "
+            + "where a.senderAccountId in :senders")
+    List<LastSeenView> findLastSeenBySenderAccountIdIn(@Param("senders") Collection<String> senders);
+}
@@ -0,0 +1,12 @@
+package com.projeto.antifraud.repository;
+
+import com.projeto.antifraud.entity.DatabaseEpoch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/*
+  Repositório da identidade do banco (linha única, DatabaseEpoch.SINGLETON_ID).
+*/
+@Repository
+public interface DatabaseEpochRepository extends JpaRepository<DatabaseEpoch, Integer> {
+}
@@ -0,0 +1,21 @@
+package com.projeto.antifraud.repository;
+
+import java.time.LocalDateTime;
+
+/*
+  Projeção da última transação de um remetente.
+  - Apenas as colunas lidas pelas regras de canal, dispositivo e geolocalização
+    (o SELECT não carrega a entidade inteira).
+*/
+public interface LastSeenView {
+
+    String getSenderAccountId();
+
+    String getChannel();
+
+    String getDeviceId();
+
+    String getGeoLocation();
+
+    LocalDateTime getTimestamp();
+}
@@ -0,0 +1,27 @@
+package com.projeto.antifraud.repository;
+
+import com.projeto.antifraud.entity.ReceiverRollup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/*
+  Repositório dos resumos por conta recebedora (histórico arquivado).
+  - Checagem de "recebedor conhecido" por chave primária (existsById) e em
+    bloco; aquecimento do filtro de recebedores.
+*/
+@Repository
+public interface ReceiverRollupRepository extends JpaRepository<ReceiverRollup, String> {
+
+    @Query("select r.receiverAccountId from ReceiverRollup r where r.receiverAccountId in :receivers")
+    List<String> findKnownReceiverAccountIdsIn(@Param("receivers") Collection<String> receivers);
+
+    @Query("select r.receiverAccountId from ReceiverRollup r")
+    Stream<String> streamReceiverAccountIds();
+}
@@ -0,0 +1,18 @@
+package com.projeto.antifraud.repository;
+
+import java.math.BigDecimal;
+
+/*
+  Projeção de uma transação gravada para o backtest: os campos lidos pelas
+  regras mais o veredito armazenado (isSuspicious / riskReason), para comparação.
+*/
+public interface ReplayRowView extends RiskStateEventView {
+
+    BigDecimal getAmount();
+
+    Integer getAuthAttempts();
+
+    Boolean getIsSuspicious();
+
+    String getRiskReason();
+}
@@ -0,0 +1,15 @@
+package com.projeto.antifraud.repository;
+
+/*
+  Projeção de uma transação gravada com tudo o que alimenta o estado em
+  memória (janela de velocidade, última transação, IP/dispositivo,
+  recebedor conhecido), usada na recuperação após o snapshot.
+*/
+public interface RiskStateEventView extends VelocityEventView, SharedEntityEventView {
+
+    Long getId();
+
+    String getChannel();
+
+    String getGeoLocation();
+}
@@ -0,0 +1,18 @@
+package com.projeto.antifraud.repository;
+
+import java.time.LocalDateTime;
+
+/*
+  Projeção de um uso de IP/dispositivo por um remetente (remetente, IP,
+  dispositivo, instante), usada no aquecimento do SharedEntityIndex.
+*/
+public interface SharedEntityEventView {
+
+    String getSenderAccountId();
+
+    String getIpAddress();
+
+    String getDeviceId();
+
+    LocalDateTime getTimestamp();
+}
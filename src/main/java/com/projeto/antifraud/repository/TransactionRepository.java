@@ -3,15 +3,22 @@ package com.projeto.antifraud.repository;
 import com.projeto.antifraud.entity.Transaction;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /*
   Repositório Spring Data JPA para transações.
   - Consultas customizadas úteis para regras de velocidade e histórico.
+  - Caminhos quentes usam projeções (LastSeenView, VelocityEventView, SharedEntityEventView) que
+    leem só as colunas necessárias, cobertas pelos índices de Transaction.
 */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -21,6 +28,51 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByIpAddressAndTimestampAfter(String ipAddress, LocalDateTime after);
     List<Transaction> findByReceiverAccountIdAndTimestampAfter(String receiverAccountId, LocalDateTime after);
 
+    // Aquecimento do motor de velocidade em memória
+    List<VelocityEventView> findVelocityEventsByTimestampAfterOrderByTimestampAsc(LocalDateTime after);
+
+    // Aquecimento do índice IP/dispositivo -> contas (SharedEntityIndex)
+    List<SharedEntityEventView> findSharedEntityEventsByTimestampAfter(LocalDateTime after);
+
+    // Snapshot do estado em memória: marca d'água (maior id) e recuperação por páginas de id (keyset)
+    @Query("select max(t.id) from Transaction t")
+    Long findMaxId();
+
+    List<RiskStateEventView> findStateEventsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Backtest: páginas em ordem (timestamp, id) a partir da última linha lida (keyset), até "to" (exclusivo)
+    @Query("select t.id as id, t.amount as amount, t.senderAccountId as senderAccountId, "
+            + "t.receiverAccountId as receiverAccountId, t.channel as channel, t.deviceId as deviceId, "
+            + "t.ipAddress as ipAddress, t.geoLocation as geoLocation, t.authAttempts as authAttempts, "
+            + "t.timestamp as timestamp, t.isSuspicious as isSuspicious, t.riskReason as riskReason "
+            + "from Transaction t where t.timestamp < :to "
+            + "and (t.timestamp > :afterTs or (t.timestamp = :afterTs and t.id > :afterId)) "
+            + "order by t.timestamp asc, t.id asc")
+    List<ReplayRowView> findReplayPage(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                       @Param("to") LocalDateTime to, Limit limit);
+
+    // Compactação: bloco mais antigo anterior ao corte, com tudo o que entra nos resumos (AccountRollup, ReceiverRollup)
+    List<ReplayRowView> findRollupRowsByTimestampBeforeOrderByTimestampAscIdAsc(LocalDateTime before, Limit limit);
+
+    // Índice de recebedores conhecidos: checagem de existência (LIMIT 1) e aquecimento
+    boolean existsByReceiverAccountId(String receiverAccountId);
+
+    @Query("select distinct t.receiverAccountId from Transaction t where t.receiverAccountId is not null")
+    Stream<String> streamDistinctReceiverAccountIds();
+
     // Obter a última transação do remetente 
     Optional<Transaction> findTopBySenderAccountIdOrderByTimestampDesc(String senderAccountId);
+
+    // Idem, apenas com as colunas usadas pelas regras
+    Optional<LastSeenView> findLastSeenFirstBySenderAccountIdOrderByTimestampDesc(String senderAccountId);
+
+    // Lotes: última transação de cada remetente e recebedores já conhecidos, em uma consulta por bloco
+    @Query("select t.senderAccountId as senderAccountId, t.channel as channel, t.deviceId as deviceId, "
+            + "t.geoLocation as geoLocation, t.timestamp as timestamp from Transaction t "
+            + "where t.senderAccountId in :senders and t.timestamp = "
+            + "(select max(t2.timestamp) from Transaction t2 where t2.senderAccountId = t.senderAccountId)")
+    List<LastSeenView> findLastSeenBySenderAccountIdIn(@Param("senders") Collection<String> senders);
+
+    @Query("select distinct t.receiverAccountId from Transaction t where t.receiverAccountId in :receivers")
+    List<String> findKnownReceiverAccountIdsIn(@Param("receivers") Collection<String> receivers);
 }
\ No newline at end of file
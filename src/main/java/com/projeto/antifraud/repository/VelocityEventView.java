@@ -0,0 +1,16 @@
+package com.projeto.antifraud.repository;
+
+import java.time.LocalDateTime;
+
+/*
+  Projeção de um evento de velocidade (remetente, recebedor, instante),
+  usada no aquecimento do motor em memória.
+*/
+public interface VelocityEventView {
+
+    String getSenderAccountId();
+
+    String getReceiverAccountId();
+
+    LocalDateTime getTimestamp();
+}
@@ -0,0 +1,102 @@
+package com.projeto.antifraud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+  Filtro de Bloom simples e thread-safe para chaves String.
+  - Dimensionado a partir do número esperado de inserções e da taxa
+    de falso positivo desejada.
+  - mightContain == false é definitivo; true exige confirmação exata.
+  - Bits em AtomicLongArray: inserções concorrentes não perdem bits.
+*/
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cópia dos bits (snapshot)
+    public long[] words() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    // OR com bits de outro filtro de mesmo tamanho; false se o tamanho difere
+    public boolean merge(long[] other) {
+        if (other.length != words.length()) {
+            return false;
+        }
+        for (int i = 0; i < other.length; i++) {
+            long bits = other[i];
+            long current = words.get(i);
+            while ((current | bits) != current && !words.compareAndSet(i, current, current | bits)) {
+                current = words.get(i);
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    private long index(int combined) {
+        // Garante índice não negativo (double hashing à la Kirsch-Mitzenmacher)
+        return (combined & 0x7fffffffL) % bitCount;
+    }
+
+    // FNV-1a 64 bits seguido de finalização do MurmurHash3 para espalhar os bits
+    static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,141 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.repository.ReceiverRollupRepository;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/*
+  Índice de recebedores já vistos ("known receiver").
+  - Filtro de Bloom em memória: resposta negativa é definitiva e não toca o banco.
+  - Resposta positiva é confirmada por um conjunto de recebedores confirmados
+    e, em último caso, pela consulta exata: primeiro o resumo do histórico
+    arquivado (ReceiverRollup, por chave primária), depois a tabela quente
+    (existsByReceiverAccountId, limitada pela retenção).
+  - Atualizado a cada transação salva. Na inicialização o filtro vem do
+    snapshot (RiskStateSnapshotter) ou é aquecido com os recebedores
+    distintos (tabela quente e resumos); até lá, toda consulta vai direto ao banco para não gerar
+    falsos "recebedor novo".
+*/
+@Component
+public class KnownReceiverIndex {
+
+    static final long EXPECTED_RECEIVERS = 1_000_000;
+    static final double FALSE_POSITIVE_RATE = 0.01;
+    static final int MAX_CONFIRMED = 100_000;
+    static final int IN_CLAUSE_CHUNK = 1_000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ReceiverRollupRepository receiverRollupRepository;
+
+    private final BloomFilter filter = new BloomFilter(EXPECTED_RECEIVERS, FALSE_POSITIVE_RATE);
+    private final Set<String> confirmed = ConcurrentHashMap.newKeySet();
+    private volatile boolean warmed;
+
+    public boolean isKnown(String receiverAccountId) {
+        Boolean inMemory = knownInMemory(receiverAccountId);
+        return inMemory != null ? inMemory : confirmExact(receiverAccountId);
+    }
+
+    // Resposta só com estado em memória; null quando é preciso confirmar no banco
+    public Boolean knownInMemory(String receiverAccountId) {
+        if (warmed && !filter.mightContain(receiverAccountId)) {
+            return Boolean.FALSE;
+        }
+        return confirmed.contains(receiverAccountId) ? Boolean.TRUE : null;
+    }
+
+    // Confirmação exata (consultas de existência: resumo arquivado, depois tabela quente)
+    public boolean confirmExact(String receiverAccountId) {
+        boolean exists = receiverRollupRepository.existsById(receiverAccountId)
+                || transactionRepository.existsByReceiverAccountId(receiverAccountId);
+        if (exists) {
+            confirm(receiverAccountId);
+        }
+        return exists;
+    }
+
+    // Variante para lotes: resolve vários recebedores com uma consulta por bloco de incertos
+    public Set<String> knownAmong(Collection<String> receiverAccountIds) {
+        Set<String> known = new HashSet<>();
+        List<String> uncertain = new ArrayList<>();
+        for (String receiver : receiverAccountIds) {
+            Boolean inMemory = knownInMemory(receiver);
+            if (inMemory == null) {
+                uncertain.add(receiver);
+            } else if (inMemory) {
+                known.add(receiver);
+            }
+        }
+        for (int i = 0; i < uncertain.size(); i += IN_CLAUSE_CHUNK) {
+            List<String> chunk = uncertain.subList(i, Math.min(i + IN_CLAUSE_CHUNK, uncertain.size()));
+            for (String receiver : receiverRollupRepository.findKnownReceiverAccountIdsIn(chunk)) {
+                confirm(receiver);
+                known.add(receiver);
+            }
+            List<String> rest = chunk.stream().filter(r -> !known.contains(r)).toList();
+            if (rest.isEmpty()) {
+                continue;
+            }
+            for (String receiver : transactionRepository.findKnownReceiverAccountIdsIn(rest)) {
+                confirm(receiver);
+                known.add(receiver);
+            }
+        }
+        return known;
+    }
+
+    // Chamado a cada transação salva
+    public void markSeen(String receiverAccountId) {
+        if (receiverAccountId == null) {
+            return;
+        }
+        filter.put(receiverAccountId);
+        confirm(receiverAccountId);
+    }
+
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (Stream<String> receivers = transactionRepository.streamDistinctReceiverAccountIds()) {
+            receivers.forEach(filter::put);
+        }
+        try (Stream<String> archived = receiverRollupRepository.streamReceiverAccountIds()) {
+            archived.forEach(filter::put);
+        }
+        warmed = true;
+    }
+
+    // Bits do filtro para o snapshot
+    public long[] exportFilter() {
+        return filter.words();
+    }
+
+    // Restaura o filtro de um snapshot; false se o dimensionamento não confere (aquecer do banco)
+    public boolean restoreFilter(long[] words) {
+        if (!filter.merge(words)) {
+            return false;
+        }
+        warmed = true;
+        return true;
+    }
+
+    private void confirm(String receiverAccountId) {
+        // Limite simples de memória: recebedores populares voltam a ser confirmados rapidamente
+        if (confirmed.size() >= MAX_CONFIRMED) {
+            confirmed.clear();
+        }
+        confirmed.add(receiverAccountId);
+    }
+}
@@ -0,0 +1,33 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.LastSeenView;
+
+import java.time.LocalDateTime;
+
+/*
+  "Impressão digital" compacta da última transação de um remetente.
+  - Apenas os campos usados pelas regras de canal, dispositivo e geolocalização.
+*/
+public record LastSeen(String channel, String deviceId, String geoLocation, LocalDateTime timestamp) {
+
+    public static LastSeen of(Transaction transaction) {
+        return new LastSeen(transaction.getChannel(), transaction.getDeviceId(),
+                transaction.getGeoLocation(), transaction.getTimestamp());
+    }
+
+    public static LastSeen of(LastSeenView view) {
+        return new LastSeen(view.getChannel(), view.getDeviceId(), view.getGeoLocation(), view.getTimestamp());
+    }
+
+    // A mais recente das duas (por timestamp); aceita nulos
+    public static LastSeen newest(LastSeen a, LastSeen b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return b.timestamp().isBefore(a.timestamp()) ? a : b;
+    }
+}
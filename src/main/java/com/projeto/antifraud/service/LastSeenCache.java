@@ -0,0 +1,152 @@
+package com.projeto.antifraud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.antifraud.entity.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+  Cache da última transação (LastSeen) por remetente.
+  - Limitado por tamanho (antifraud.last-seen-cache.max-size) e por tempo sem
+    acesso (expire-after-access-minutes); contas inativas saem do cache.
+  - Cada transação analisada é registrada com merge atômico "a mais recente
+    vence" (por timestamp): requisições simultâneas da mesma conta não
+    sobrescrevem um registro mais novo com um mais antigo.
+  - Também guarda "sem histórico" (conta nova), evitando consultar o banco
+    de novo a cada transação de uma conta ainda sem registros.
+  - Uma conta registrada sem ter sido carregada do banco fica "parcial": o
+    valor é só um limite inferior, e a primeira leitura ainda consulta o banco.
+  - Carregamento fora do lock do mapa: duas faltas simultâneas da mesma conta
+    podem consultar o banco duas vezes, mas nenhuma thread (virtual) fica
+    presa esperando a consulta de outra.
+*/
+@Component
+public class LastSeenCache {
+
+    private final Cache<String, Entry> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // complete=false: apenas transações registradas, o banco ainda não foi consultado
+    private record Entry(LastSeen lastSeen, boolean complete) {
+
+        static Entry merge(Entry a, Entry b) {
+            return new Entry(LastSeen.newest(a.lastSeen, b.lastSeen), a.complete || b.complete);
+        }
+    }
+
+    public LastSeenCache(@Value("${antifraud.last-seen-cache.max-size:500000}") long maxSize,
+                         @Value("${antifraud.last-seen-cache.expire-after-access-minutes:60}") long expireMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+    }
+
+    // Última transação do remetente; em falta, usa o loader (banco) e guarda o resultado
+    public LastSeen get(String senderAccountId, Supplier<LastSeen> loader) {
+        if (senderAccountId == null) {
+            return null;
+        }
+        Entry cached = cache.getIfPresent(senderAccountId);
+        if (cached != null && cached.complete) {
+            hits.increment();
+            return cached.lastSeen;
+        }
+        misses.increment();
+        Entry loaded = new Entry(loader.get(), true);
+        return cache.asMap().merge(senderAccountId, loaded, Entry::merge).lastSeen;
+    }
+
+    // Variante para lotes: remetentes em falta são carregados de uma vez pelo bulkLoader
+    public Map<String, LastSeen> getAll(Collection<String> senderAccountIds,
+                                        Function<List<String>, Map<String, LastSeen>> bulkLoader) {
+        Map<String, LastSeen> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String sender : senderAccountIds) {
+            Entry cached = cache.getIfPresent(sender);
+            if (cached != null && cached.complete) {
+                hits.increment();
+                result.put(sender, cached.lastSeen);
+            } else {
+                misses.increment();
+                missing.add(sender);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, LastSeen> loaded = bulkLoader.apply(missing);
+            for (String sender : missing) {
+                Entry merged = cache.asMap().merge(sender, new Entry(loaded.get(sender), true), Entry::merge);
+                if (merged.lastSeen != null) {
+                    result.put(sender, merged.lastSeen);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Valor em memória, mesmo parcial, sem consultar o banco nem contar acerto/falta
+    public LastSeen peek(String senderAccountId) {
+        Entry cached = senderAccountId != null ? cache.getIfPresent(senderAccountId) : null;
+        return cached != null ? cached.lastSeen : null;
+    }
+
+    public boolean isCached(String senderAccountId) {
+        Entry cached = senderAccountId != null ? cache.getIfPresent(senderAccountId) : null;
+        return cached != null && cached.complete;
+    }
+
+    // Registra uma transação analisada (merge atômico, a mais recente vence)
+    public void record(Transaction transaction) {
+        if (transaction.getTimestamp() != null) {
+            record(transaction.getSenderAccountId(), LastSeen.of(transaction));
+        }
+    }
+
+    public void record(String senderAccountId, LastSeen lastSeen) {
+        if (senderAccountId == null || lastSeen == null) {
+            return;
+        }
+        cache.asMap().merge(senderAccountId, new Entry(lastSeen, false), Entry::merge);
+    }
+
+    // Entradas atuais para o snapshot (lastSeen null + complete: conta sem histórico)
+    public List<Snapshot> export() {
+        List<Snapshot> result = new ArrayList<>();
+        cache.asMap().forEach((sender, e) -> result.add(new Snapshot(sender, e.lastSeen, e.complete)));
+        return result;
+    }
+
+    // Restaura entradas de um snapshot com o mesmo merge do registro (a mais recente vence)
+    public void restore(List<Snapshot> entries) {
+        for (Snapshot s : entries) {
+            cache.asMap().merge(s.senderAccountId(), new Entry(s.lastSeen(), s.complete()), Entry::merge);
+        }
+    }
+
+    public Stats stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new Stats(cache.estimatedSize(), h, m, cache.stats().evictionCount(),
+                h + m == 0 ? 0 : (double) h / (h + m));
+    }
+
+    public record Snapshot(String senderAccountId, LastSeen lastSeen, boolean complete) {
+    }
+
+    public record Stats(long size, long hits, long misses, long evictions, double hitRate) {
+    }
+}
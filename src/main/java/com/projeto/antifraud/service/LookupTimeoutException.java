@@ -0,0 +1,13 @@
+package com.projeto.antifraud.service;
+
+/*
+  Uma consulta de histórico do RiskContext não respondeu dentro do prazo
+  (antifraud.analysis.lookup-timeout-ms). O serviço converte em veredito
+  de revisão manual em vez de propagar o erro.
+*/
+public class LookupTimeoutException extends RuntimeException {
+
+    public LookupTimeoutException(String lookup, long timeoutMs, Throwable cause) {
+        super("Consulta '" + lookup + "' excedeu " + timeoutMs + " ms", cause);
+    }
+}
@@ -1,138 +1,266 @@
 package com.projeto.antifraud.service;
 
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
 import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.metrics.AnalysisMetrics;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.LastSeenView;
 import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.persistence.TransactionWriter;
+import com.projeto.antifraud.service.rule.RuleEngine;
+import com.projeto.antifraud.service.rule.RuleMatch;
+import com.projeto.antifraud.service.rule.ScoreCard;
+import com.projeto.antifraud.service.rule.ScoringPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /*
   Serviço principal de análise de risco.
-  - A função analyzeTransaction aplica várias regras heurísticas
-    (autenticação, velocidade, histórico de dispositivo/canal/geo,
-     múltiplos receptores, receptor novo, montante/hora).
-  - As regras são avaliadas em ordem de prioridade e a primeira que
-    corresponder marca a transação como suspeita e persiste o resultado.
-  - Para evolução: considerar acumular sinais e retornar um score/enum
-    de severidade em vez de retornos imediatos.
+  - A função analyzeTransaction carrega um snapshot de atributos
+    (RiskContext) e delega ao RuleEngine as regras heurísticas
+    (autenticação, velocidade, IP/dispositivo compartilhado entre contas,
+     histórico de dispositivo/canal/geo, múltiplos receptores, receptor
+     novo, montante/hora).
+  - A regra de maior prioridade que corresponder marca a transação
+    como suspeita e o resultado é persistido.
+  - Se uma consulta de histórico estoura o prazo (LookupTimeoutException),
+    a transação não é aprovada às cegas: fica suspeita, para revisão manual.
+  - antifraud.analysis.mode=SCORING troca a primeira regra pela pontuação
+    acumulada (RuleEngine.score): status APPROVED/REVIEW/REJECTED, pontuação
+    e sinais que contribuíram. O padrão continua FIRST_MATCH.
 */
 @Service
 public class RiskAnalysisService {
 
+    private static final Logger log = LoggerFactory.getLogger(RiskAnalysisService.class);
+
+    static final int BATCH_CHUNK = 1_000;
+
+    public enum Mode { FIRST_MATCH, SCORING }
+
+    @Value("${antifraud.analysis.mode:FIRST_MATCH}")
+    private Mode mode;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private AccountRollupRepository accountRollupRepository;
+
+    @Autowired
+    private TransactionWriter transactionWriter;
+
+    @Autowired
+    private RiskContextLoader riskContextLoader;
+
+    @Autowired
+    private RuleEngine ruleEngine;
+
+    @Autowired
+    private ScoringPolicy scoringPolicy;
+
+    @Autowired
+    private VelocityEngine velocityEngine;
+
+    @Autowired
+    private KnownReceiverIndex knownReceiverIndex;
+
+    @Autowired
+    private LastSeenCache lastSeenCache;
+
+    @Autowired
+    private SharedEntityIndex sharedEntityIndex;
+
+    @Autowired
+    private ShardedAnalysisExecutor shardedAnalysisExecutor;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
     public Transaction analyzeTransaction(Transaction transaction) {
-        BigDecimal highLimit = new BigDecimal("2000.00");
-        BigDecimal highAmountForNewReceiver = new BigDecimal("1000.00");
-
-        int hour = transaction.getTimestamp().getHour();
-        boolean isNightTime = (hour >= 22 || hour <= 6);
-
-        // Regra: muitas tentativas de autenticação -> risco crítico imediato
-        Integer authAttempts = transaction.getAuthAttempts() != null ? transaction.getAuthAttempts() : 0;
-        if (authAttempts >= 3) {
-            transaction.setSuspicious(true);
-            transaction.setRiskReason("ALERTA: Múltiplas tentativas de autenticação falhadas.");
-            return transactionRepository.save(transaction);
-        }
+        long start = System.nanoTime();
+        // Consultas ao banco (última transação, recebedor) na thread do chamador: o shard não espera I/O
+        RiskContextLoader.Prefetched prefetched = riskContextLoader.prefetch(transaction);
+        // Ler a janela, decidir e registrar na thread do shard da conta: atômico por conta, sem lock
+        shardedAnalysisExecutor.call(transaction.getSenderAccountId(), () -> {
+            decide(transaction, riskContextLoader.load(transaction, prefetched));
+            record(transaction);
+            return transaction;
+        });
+        Transaction saved = persist(transaction);
+        analysisMetrics.recordAnalysis(saved, System.nanoTime() - start);
+        return saved;
+    }
 
-        // Regra: velocidade (panic mode) - últimas 5 minutos
-        LocalDateTime fiveMinutesAgo = transaction.getTimestamp().minusMinutes(5);
-        var recentTransactions = transactionRepository.findBySenderAccountIdAndTimestampAfter(
-                transaction.getSenderAccountId(),
-                fiveMinutesAgo
-        );
-        if (recentTransactions.size() >= 3) {
-            transaction.setSuspicious(true);
-            transaction.setRiskReason("ALERTA: Possível ataque em modo pânico. Transações demais em curto período.");
-            return transactionRepository.save(transaction);
+    /*
+      Analisa um lote (ex.: arquivo de liquidação).
+      - Agrupa por remetente e avalia cada grupo em ordem de timestamp,
+        registrando cada transação na janela de velocidade antes da próxima:
+        a velocidade dentro do lote é contada como em chamadas sequenciais.
+      - Última transação de cada remetente (fora do LastSeenCache) e recebedores
+        já conhecidos são carregados uma vez para o lote inteiro (uma consulta
+        por bloco de IDs).
+      - Um recebedor é conhecido se já existia antes do lote ou se aparece
+        no lote em timestamp anterior; assim os grupos podem rodar em paralelo,
+        cada um no shard do seu remetente.
+      - O resultado é persistido em blocos (saveAll ou fila write-behind).
+    */
+    public List<Transaction> analyzeBatch(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        Map<String, List<Transaction>> bySender = new LinkedHashMap<>();
+        Map<String, LocalDateTime> firstInBatch = new HashMap<>();
+        for (Transaction t : transactions) {
+            bySender.computeIfAbsent(t.getSenderAccountId(), k -> new ArrayList<>()).add(t);
+            if (t.getReceiverAccountId() != null) {
+                firstInBatch.merge(t.getReceiverAccountId(), t.getTimestamp(), (a, b) -> a.isBefore(b) ? a : b);
+            }
         }
 
-        // Regras baseadas na última transação do remetente (canal, dispositivo, geo)
-        Optional<Transaction> lastOpt = transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(transaction.getSenderAccountId());
-        if (lastOpt.isPresent()) {
-            Transaction lastTx = lastOpt.get();
-
-            // Mudança de canal inusitada
-            String lastChannel = lastTx.getChannel();
-            String currentChannel = transaction.getChannel();
-            if (lastChannel != null && currentChannel != null && !lastChannel.equalsIgnoreCase(currentChannel)) {
-                if (currentChannel.equalsIgnoreCase("PHONE") || !lastChannel.equalsIgnoreCase(currentChannel)) {
-                    transaction.setSuspicious(true);
-                    transaction.setRiskReason("Mudança de canal incomum: antes " + lastChannel + " agora " + currentChannel + ".");
-                    return transactionRepository.save(transaction);
-                }
-            }
+        List<String> senders = bySender.keySet().stream().filter(Objects::nonNull).toList();
+        Map<String, LastSeen> lastBySender = lastSeenCache.getAll(senders, this::loadLastSeen);
+        Set<String> knownBefore = knownReceiverIndex.knownAmong(firstInBatch.keySet());
 
-            // Mudança de dispositivo
-            String lastDevice = lastTx.getDeviceId();
-            String curDevice = transaction.getDeviceId();
-            if (lastDevice != null && curDevice != null && !lastDevice.equals(curDevice)) {
-                transaction.setSuspicious(true);
-                transaction.setRiskReason("Dispositivo diferente do último registrado para a conta.");
-                return transactionRepository.save(transaction);
-            }
+        List<CompletableFuture<Object>> groups = new ArrayList<>(bySender.size());
+        bySender.forEach((sender, group) -> groups.add(shardedAnalysisExecutor.submit(sender, () -> {
+            decideGroup(group, lastBySender.get(sender), knownBefore, firstInBatch);
+            return null;
+        })));
+        shardedAnalysisExecutor.awaitAll(groups);
+
+        for (List<Transaction> chunk : chunks(transactions)) {
+            transactionWriter.writeAll(chunk);
+        }
+        for (String receiver : firstInBatch.keySet()) {
+            knownReceiverIndex.markSeen(receiver);
+        }
+        analysisMetrics.recordBatch(transactions.size(), System.nanoTime() - start);
+        return transactions;
+    }
 
-            // Mismatch de geolocalização em pouco tempo (com valor significativo)
-            String lastGeo = lastTx.getGeoLocation();
-            String curGeo = transaction.getGeoLocation();
-            if (lastGeo != null && curGeo != null && !lastGeo.equalsIgnoreCase(curGeo)) {
-                if (transaction.getAmount().compareTo(new BigDecimal("200.00")) > 0) {
-                    transaction.setSuspicious(true);
-                    transaction.setRiskReason("Alteração de geolocalização em relação à última transação.");
-                    return transactionRepository.save(transaction);
-                }
+    // Transações de um remetente em ordem de timestamp, cada uma vendo as anteriores (roda no shard do remetente)
+    private void decideGroup(List<Transaction> group, LastSeen last, Set<String> knownBefore,
+                             Map<String, LocalDateTime> firstInBatch) {
+        group.sort(Comparator.comparing(Transaction::getTimestamp));
+        for (Transaction t : group) {
+            String receiver = t.getReceiverAccountId();
+            boolean receiverKnown = receiver == null || knownBefore.contains(receiver)
+                    || firstInBatch.get(receiver).isBefore(t.getTimestamp());
+            decide(t, riskContextLoader.load(t, last, receiverKnown));
+            record(t);
+            if (last == null || !t.getTimestamp().isBefore(last.timestamp())) {
+                last = LastSeen.of(t);
             }
         }
+    }
 
-        // Padrão comportamental: múltiplos receptores distintos em 1 hora
-        LocalDateTime oneHourAgo = transaction.getTimestamp().minusHours(1);
-        var txsLastHour = transactionRepository.findBySenderAccountIdAndTimestampAfter(transaction.getSenderAccountId(), oneHourAgo);
-        Set<String> distinctReceivers = txsLastHour.stream()
-                .map(Transaction::getReceiverAccountId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        if (transaction.getReceiverAccountId() != null) {
-            distinctReceivers.add(transaction.getReceiverAccountId());
+    // Aplica o motor de regras e preenche o resultado na transação
+    private void decide(Transaction transaction, RiskContext ctx) {
+        boolean scoring = mode == Mode.SCORING;
+        RuleMatch match = null;
+        ScoreCard card = null;
+        try {
+            if (scoring) {
+                card = ruleEngine.score(transaction, ctx, scoringPolicy);
+            } else {
+                match = ruleEngine.evaluate(transaction, ctx);
+            }
+        } catch (LookupTimeoutException e) {
+            log.warn("Veredito de contingência para {}: {}", transaction.getSenderAccountId(), e.getMessage());
+            apply(transaction, true, RiskReason.LOOKUP_TIMEOUT);
+            if (scoring) {
+                transaction.setStatus(RiskStatus.REVIEW.name());
+            }
+            riskContextLoader.finish(ctx, RiskReason.LOOKUP_TIMEOUT);
+            return;
         }
-        if (distinctReceivers.size() >= 3) {
-            transaction.setSuspicious(true);
-            transaction.setRiskReason("Padrão suspeito: múltiplos recebedores distintos em 1 hora.");
-            return transactionRepository.save(transaction);
+        if (log.isDebugEnabled()) {
+            log.debug("Contexto de risco: {} consulta(s) ao banco em {} µs",
+                    ctx.dbQueries(), ctx.loadNanos() / 1_000);
         }
 
-        // Priorizar regra crítica: montante alto em horário noturno
-        String receiver = transaction.getReceiverAccountId();
-        if (transaction.getAmount().compareTo(highLimit) > 0 && isNightTime) {
-            transaction.setSuspicious(true);
-            transaction.setRiskReason("ALERTA CRÍTICO: Transação de alto valor em horário atípico.");
-            return transactionRepository.save(transaction);
-        } else if (transaction.getAmount().compareTo(highLimit) > 0) {
-            transaction.setSuspicious(true);
-            transaction.setRiskReason("Atenção: O valor excede o limite normal.");
-            return transactionRepository.save(transaction);
+        if (card != null) {
+            apply(transaction, card);
+        } else if (match != null) {
+            if (match.detail() != null && log.isDebugEnabled()) {
+                log.debug("Regra {} para {}: {}", match.rule(), transaction.getSenderAccountId(), match.detail());
+            }
+            apply(transaction, true, match.reason());
+        } else {
+            // Se nenhuma regra, pode aprovar
+            apply(transaction, false, RiskReason.APPROVED);
         }
+        riskContextLoader.finish(ctx, transaction.getRiskCode());
+    }
 
-        // Receptor novo com montante elevado
-        if (receiver != null) {
-            LocalDateTime distantPast = LocalDateTime.now().minusYears(100);
-            var receiverHistory = transactionRepository.findByReceiverAccountIdAndTimestampAfter(receiver, distantPast);
-            if ((receiverHistory == null || receiverHistory.isEmpty()) && transaction.getAmount().compareTo(highAmountForNewReceiver) > 0) {
-                transaction.setSuspicious(true);
-                transaction.setRiskReason("Recebedor novo e montante elevado.");
-                return transactionRepository.save(transaction);
+    // Código e mensagem pré-montada: nenhuma string criada por decisão
+    private static void apply(Transaction transaction, boolean suspicious, RiskReason reason) {
+        transaction.setSuspicious(suspicious);
+        transaction.setRiskCode(reason);
+        transaction.setRiskReason(reason.message());
+    }
+
+    private static void apply(Transaction transaction, ScoreCard card) {
+        apply(transaction, card.status() != RiskStatus.APPROVED, card.reason());
+        transaction.setStatus(card.status().name());
+        transaction.setRiskScore(card.score());
+        transaction.setRiskContributions(card.contributions());
+    }
+
+    // Estado em memória da conta (janela de velocidade, última transação, IP/dispositivo); chamado na thread do shard
+    private void record(Transaction transaction) {
+        velocityEngine.record(transaction);
+        lastSeenCache.record(transaction);
+        sharedEntityIndex.record(transaction);
+    }
+
+    // Persiste o resultado (síncrono ou write-behind) e marca o recebedor como conhecido
+    private Transaction persist(Transaction transaction) {
+        Transaction saved = transactionWriter.write(transaction);
+        knownReceiverIndex.markSeen(saved.getReceiverAccountId());
+        return saved;
+    }
+
+    // Faltas do LastSeenCache no lote: uma consulta por bloco de remetentes (e dos resumos, para os ausentes), mais a fila write-behind
+    private Map<String, LastSeen> loadLastSeen(List<String> senders) {
+        Map<String, LastSeen> result = new HashMap<>();
+        for (List<String> chunk : chunks(senders)) {
+            for (LastSeenView last : transactionRepository.findLastSeenBySenderAccountIdIn(chunk)) {
+                result.putIfAbsent(last.getSenderAccountId(), LastSeen.of(last));
             }
         }
+        // Remetentes sem linhas na tabela quente: última transação arquivada (AccountRollup)
+        List<String> archived = senders.stream().filter(sender -> !result.containsKey(sender)).toList();
+        for (List<String> chunk : chunks(archived)) {
+            for (LastSeenView last : accountRollupRepository.findLastSeenBySenderAccountIdIn(chunk)) {
+                result.putIfAbsent(last.getSenderAccountId(), LastSeen.of(last));
+            }
+        }
+        for (String sender : senders) {
+            result.compute(sender, (k, stored) -> LastSeen.newest(stored, transactionWriter.pendingLastSeen(k)));
+        }
+        return result;
+    }
 
-        // Se nenhuma regra, pode aprovar
-        transaction.setSuspicious(false);
-        transaction.setRiskReason("Transação aprovada.");
-
-        return transactionRepository.save(transaction);
+    private static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> result = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += BATCH_CHUNK) {
+            result.add(items.subList(i, Math.min(i + BATCH_CHUNK, items.size())));
+        }
+        return result;
     }
-}
\ No newline at end of file
+}
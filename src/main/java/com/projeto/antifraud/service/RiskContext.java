@@ -0,0 +1,123 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.service.rule.RiskThresholds;
+
+/*
+  Snapshot de atributos (features) de uma transação, usado pelas regras.
+  - thresholds: limites das regras para o canal/segmento da transação
+    (RiskThresholdsRegistry); padrão RiskThresholds.DEFAULTS.
+  - recentCount: transações do remetente na janela de pânico (padrão 5 minutos, em memória).
+  - distinctReceivers: recebedores distintos na janela de recebedores (padrão 1 hora),
+    incluindo o atual (em memória).
+  - lastSeen: última transação do remetente, ou null se não houver.
+  - receiverKnown: o recebedor já apareceu em alguma transação.
+  - sharedDeviceAccounts / sharedIpAccounts: contas distintas que usaram o
+    dispositivo / IP da transação na última hora, incluindo o remetente (em memória).
+  - Atributos que exigem banco chegam resolvidos pelo RiskContextLoader
+    (prefetch, fora do shard) quando alguma regra pode lê-los; a leitura,
+    feita no máximo uma vez, só os reconcilia com o estado em memória.
+  - dbQueries / loadNanos: instrumentação do carregamento.
+*/
+public final class RiskContext {
+
+    // Leitor de um atributo: valor já resolvido, reconciliado com a memória ou prazo estourado
+    @FunctionalInterface
+    interface Feature<T> {
+        T load(RiskContext ctx);
+    }
+
+    private final int recentCount;
+    private final int distinctReceivers;
+    private final Feature<LastSeen> lastSeenFeature;
+    private final Feature<Boolean> receiverKnownFeature;
+    private int sharedDeviceAccounts;
+    private int sharedIpAccounts;
+    private RiskThresholds thresholds = RiskThresholds.DEFAULTS;
+
+    private LastSeen lastSeen;
+    private boolean lastSeenLoaded;
+    private Boolean receiverKnown;
+    private int dbQueries;
+    private long loadNanos;
+
+    RiskContext(int recentCount, int distinctReceivers,
+                Feature<LastSeen> lastSeenFeature, Feature<Boolean> receiverKnownFeature) {
+        this.recentCount = recentCount;
+        this.distinctReceivers = distinctReceivers;
+        this.lastSeenFeature = lastSeenFeature;
+        this.receiverKnownFeature = receiverKnownFeature;
+    }
+
+    // Snapshot com valores já conhecidos (testes, reprocessamento)
+    public static RiskContext of(int recentCount, int distinctReceivers, LastSeen lastSeen, boolean receiverKnown) {
+        return new RiskContext(recentCount, distinctReceivers, c -> lastSeen, c -> receiverKnown);
+    }
+
+    public RiskThresholds thresholds() {
+        return thresholds;
+    }
+
+    // Limites resolvidos para a transação (preenchidos pelo RiskContextLoader / backtest)
+    public RiskContext withThresholds(RiskThresholds thresholds) {
+        this.thresholds = thresholds;
+        return this;
+    }
+
+    public int recentCount() {
+        return recentCount;
+    }
+
+    public int distinctReceivers() {
+        return distinctReceivers;
+    }
+
+    public int sharedDeviceAccounts() {
+        return sharedDeviceAccounts;
+    }
+
+    public int sharedIpAccounts() {
+        return sharedIpAccounts;
+    }
+
+    // Contagens do SharedEntityIndex (preenchidas pelo RiskContextLoader)
+    public RiskContext withSharedAccounts(int deviceAccounts, int ipAccounts) {
+        this.sharedDeviceAccounts = deviceAccounts;
+        this.sharedIpAccounts = ipAccounts;
+        return this;
+    }
+
+    public LastSeen lastSeen() {
+        if (!lastSeenLoaded) {
+            long start = System.nanoTime();
+            lastSeen = lastSeenFeature.load(this);
+            lastSeenLoaded = true;
+            loadNanos += System.nanoTime() - start;
+        }
+        return lastSeen;
+    }
+
+    public boolean receiverKnown() {
+        if (receiverKnown == null) {
+            long start = System.nanoTime();
+            receiverKnown = receiverKnownFeature.load(this);
+            loadNanos += System.nanoTime() - start;
+        }
+        return receiverKnown;
+    }
+
+    public int dbQueries() {
+        return dbQueries;
+    }
+
+    public long loadNanos() {
+        return loadNanos;
+    }
+
+    void recordQueries(int queries) {
+        dbQueries += queries;
+    }
+
+    void addLoadNanos(long nanos) {
+        loadNanos += nanos;
+    }
+}
@@ -0,0 +1,288 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.metrics.AnalysisMetrics;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.LastSeenView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.persistence.TransactionWriter;
+import com.projeto.antifraud.service.rule.ChannelChangeRule;
+import com.projeto.antifraud.service.rule.DeviceChangeRule;
+import com.projeto.antifraud.service.rule.GeoChangeRule;
+import com.projeto.antifraud.service.rule.NewReceiverRule;
+import com.projeto.antifraud.service.rule.RiskThresholds;
+import com.projeto.antifraud.service.rule.RiskThresholdsRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Monta o RiskContext de uma transação.
+  - Limites das regras: resolvidos uma vez por transação (canal/segmento) na
+    versão atual do RiskThresholdsRegistry; as janelas de velocidade vêm deles.
+  - Velocidade e recebedores distintos: motor em memória (sem banco), calculados na hora.
+  - Contas por IP/dispositivo: SharedEntityIndex em memória (sem banco).
+  - Atributos que exigem banco são resolvidos em prefetch, na thread do
+    chamador; a thread do shard só lê memória (janelas, índices) e decide.
+  - O prefetch só consulta o que alguma regra pode ler, pelos mesmos testes
+    baratos das regras (canal/dispositivo presentes, montante acima do
+    mínimo de geo / recebedor novo). Uma regra de maior prioridade que
+    decida antes não evita a consulta já feita.
+  - Última transação do remetente: LastSeenCache; em falta, uma consulta
+    (projeção LastSeenView), que inclui a fila write-behind ainda não gravada.
+    Conta sem linhas na tabela quente: última transação arquivada
+    (AccountRollup). No shard, vale a mais nova entre o prefetch e o cache.
+  - Recebedor conhecido: índice em memória; consulta exata só quando o
+    filtro não consegue decidir.
+  - Fan-out (antifraud.analysis.fan-out.enabled=true): as consultas
+    independentes (última transação, confirmação do recebedor) partem em
+    paralelo, cada uma em uma virtual thread; a latência passa a ser a da
+    mais lenta, não a soma.
+  - Cada consulta em fan-out espera no máximo lookup-timeout-ms; estourado o
+    prazo, a leitura do atributo lança LookupTimeoutException.
+  - Acumula contadores de consultas e tempo de carregamento (finish) para
+    provar o número de idas ao banco por requisição (também como distribuição
+    em AnalysisMetrics).
+*/
+@Component
+public class RiskContextLoader {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRollupRepository accountRollupRepository;
+
+    @Autowired
+    private VelocityEngine velocityEngine;
+
+    @Autowired
+    private TransactionWriter transactionWriter;
+
+    @Autowired
+    private KnownReceiverIndex knownReceiverIndex;
+
+    @Autowired
+    private LastSeenCache lastSeenCache;
+
+    @Autowired
+    private SharedEntityIndex sharedEntityIndex;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
+    @Autowired
+    private RiskThresholdsRegistry thresholdsRegistry;
+
+    @Value("${antifraud.analysis.fan-out.enabled:false}")
+    private boolean fanOut;
+
+    @Value("${antifraud.analysis.lookup-timeout-ms:500}")
+    private long lookupTimeoutMs;
+
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    // Resolve os atributos (prefetch) e monta o contexto na mesma thread
+    public RiskContext load(Transaction transaction) {
+        return load(transaction, prefetch(transaction));
+    }
+
+    /*
+      Atributos que exigem banco, na thread do chamador (fora do shard).
+      - Última transação: LastSeenCache; em falta, uma consulta.
+      - Recebedor conhecido: índice em memória; consulta exata só quando o
+        filtro não consegue decidir.
+      - Em fan-out as duas consultas partem em paralelo e são aguardadas aqui;
+        um prazo estourado só é lançado quando a regra lê o atributo.
+      - Atributo que nenhuma regra vai ler não é consultado; se mesmo assim
+        for lido, a consulta acontece na leitura (e conta em dbQueries).
+    */
+    Prefetched prefetch(Transaction transaction) {
+        long start = System.nanoTime();
+        String sender = transaction.getSenderAccountId();
+        String receiver = transaction.getReceiverAccountId();
+        RiskThresholds thresholds = thresholdsRegistry.resolve(transaction);
+        boolean needsLastSeen = ChannelChangeRule.readsLastSeen(transaction) || DeviceChangeRule.readsLastSeen(transaction)
+                || GeoChangeRule.readsLastSeen(transaction, thresholds);
+        boolean needsReceiver = NewReceiverRule.readsReceiverKnown(transaction, thresholds);
+
+        Future<LastSeen> lastSeen = !needsLastSeen || sender == null || lastSeenCache.isCached(sender)
+                ? null
+                : lookup(() -> lastSeenCache.get(sender, () -> lastSeen(sender)));
+        Boolean inMemory = receiver == null ? Boolean.TRUE : knownReceiverIndex.knownInMemory(receiver);
+        Future<Boolean> confirmed = needsReceiver && inMemory == null
+                ? lookup(() -> knownReceiverIndex.confirmExact(receiver))
+                : null;
+
+        RiskContext.Feature<LastSeen> lastSeenFeature;
+        if (lastSeen != null) {
+            lastSeenFeature = awaited("lastSeen", lastSeen);
+        } else if (needsLastSeen) {
+            lastSeenFeature = resolved(lastSeenCache.get(sender, () -> lastSeen(sender)));
+        } else {
+            lastSeenFeature = c -> lastSeenCache.get(sender, () -> {
+                c.recordQueries(1);
+                return lastSeen(sender);
+            });
+        }
+        RiskContext.Feature<Boolean> receiverKnownFeature;
+        if (confirmed != null) {
+            receiverKnownFeature = awaited("receiverKnown", confirmed);
+        } else if (inMemory != null) {
+            receiverKnownFeature = resolved(inMemory);
+        } else {
+            receiverKnownFeature = c -> {
+                c.recordQueries(1);
+                return knownReceiverIndex.confirmExact(receiver);
+            };
+        }
+        int dbQueries = (lastSeen != null ? 1 : 0) + (confirmed != null ? 1 : 0);
+        return new Prefetched(thresholds, lastSeenFeature, receiverKnownFeature, dbQueries, System.nanoTime() - start);
+    }
+
+    // Na thread do shard: janelas em memória e atributos do prefetch, sem banco
+    RiskContext load(Transaction transaction, Prefetched prefetched) {
+        long start = System.nanoTime();
+        String sender = transaction.getSenderAccountId();
+        LocalDateTime ts = transaction.getTimestamp();
+        RiskThresholds thresholds = prefetched.thresholds();
+
+        int recentCount = velocityEngine.countSince(sender, ts.minus(thresholds.panicWindow()));
+        int distinctReceivers = velocityEngine.distinctReceiversSince(sender, ts.minus(thresholds.receiversWindow()),
+                transaction.getReceiverAccountId());
+
+        // Transação da mesma conta registrada depois do prefetch (já no shard) prevalece
+        RiskContext ctx = new RiskContext(recentCount, distinctReceivers,
+                c -> LastSeen.newest(prefetched.lastSeen().load(c), lastSeenCache.peek(sender)),
+                prefetched.receiverKnown());
+        shared(ctx, transaction).withThresholds(thresholds);
+        ctx.recordQueries(prefetched.dbQueries());
+        ctx.addLoadNanos(prefetched.loadNanos() + System.nanoTime() - start);
+        return ctx;
+    }
+
+    // Em fan-out, cada consulta em uma virtual thread; senão, na própria thread do chamador
+    private <T> Future<T> lookup(Callable<T> query) {
+        if (fanOut) {
+            return lookupExecutor.submit(query);
+        }
+        FutureTask<T> task = new FutureTask<>(query);
+        task.run();
+        return task;
+    }
+
+    private static <T> RiskContext.Feature<T> resolved(T value) {
+        return c -> value;
+    }
+
+    private <T> RiskContext.Feature<T> awaited(String lookup, Future<T> future) {
+        try {
+            T value = await(lookup, future);
+            return c -> value;
+        } catch (LookupTimeoutException e) {
+            return c -> {
+                throw e;
+            };
+        }
+    }
+
+    // Contas que compartilham o dispositivo / IP da transação (índice em memória)
+    private RiskContext shared(RiskContext ctx, Transaction transaction) {
+        String sender = transaction.getSenderAccountId();
+        LocalDateTime ts = transaction.getTimestamp();
+        return ctx.withSharedAccounts(
+                sharedEntityIndex.accountsOnDevice(transaction.getDeviceId(), sender, ts),
+                sharedEntityIndex.accountsOnIp(transaction.getIpAddress(), sender, ts));
+    }
+
+    // Última transação gravada (tabela quente, senão o resumo arquivado), ou a mais nova ainda na fila write-behind
+    private LastSeen lastSeen(String sender) {
+        Optional<LastSeenView> view = transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc(sender);
+        if (view.isEmpty()) {
+            view = accountRollupRepository.findLastSeenBySenderAccountId(sender);
+        }
+        LastSeen stored = view.map(LastSeen::of).orElse(null);
+        return LastSeen.newest(stored, transactionWriter.pendingLastSeen(sender));
+    }
+
+    private <T> T await(String lookup, Future<T> future) {
+        try {
+            return future.get(lookupTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new LookupTimeoutException(lookup, lookupTimeoutMs, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new LookupTimeoutException(lookup, lookupTimeoutMs, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    // Variante para lotes: última transação e recebedor conhecido já pré-carregados pelo chamador
+    public RiskContext load(Transaction transaction, LastSeen lastSeen, boolean receiverKnown) {
+        long start = System.nanoTime();
+        String sender = transaction.getSenderAccountId();
+        LocalDateTime ts = transaction.getTimestamp();
+        RiskThresholds thresholds = thresholdsRegistry.resolve(transaction);
+
+        int recentCount = velocityEngine.countSince(sender, ts.minus(thresholds.panicWindow()));
+        int distinctReceivers = velocityEngine.distinctReceiversSince(sender, ts.minus(thresholds.receiversWindow()),
+                transaction.getReceiverAccountId());
+
+        RiskContext ctx = shared(RiskContext.of(recentCount, distinctReceivers, lastSeen, receiverKnown), transaction)
+                .withThresholds(thresholds);
+        ctx.addLoadNanos(System.nanoTime() - start);
+        return ctx;
+    }
+
+    // Contabiliza o contexto após a decisão (atributos sob demanda já resolvidos), por código do veredito
+    public void finish(RiskContext ctx, RiskReason code) {
+        loads.increment();
+        queries.add(ctx.dbQueries());
+        nanos.add(ctx.loadNanos());
+        analysisMetrics.recordDbQueries(ctx.dbQueries(), code);
+    }
+
+    public Stats stats() {
+        long n = loads.sum();
+        return new Stats(n,
+                n == 0 ? 0 : (double) queries.sum() / n,
+                n == 0 ? 0 : nanos.sum() / 1_000.0 / n);
+    }
+
+    public record Stats(long loads, double avgDbQueries, double avgLoadMicros) {
+    }
+
+    // Resultado do prefetch: limites e atributos de banco já resolvidos (ou o prazo estourado)
+    record Prefetched(RiskThresholds thresholds, RiskContext.Feature<LastSeen> lastSeen,
+                      RiskContext.Feature<Boolean> receiverKnown, int dbQueries, long loadNanos) {
+    }
+}
@@ -0,0 +1,229 @@
+package com.projeto.antifraud.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+  Snapshot binário do estado de risco em memória, em arquivo mapeado.
+  - Cabeçalho: magic, versão, instante de criação, identidade do banco
+    (DatabaseEpoch), marca d'água (maior id de transação já gravado quando o
+    snapshot começou), tamanho e CRC32 do corpo.
+  - Corpo: janelas de velocidade por conta, LastSeenCache, usos de
+    dispositivo e de IP (SharedEntityIndex) e bits do filtro de recebedores.
+  - Escrita em arquivo temporário + move atômico: um snapshot pela metade
+    nunca substitui o anterior. Versão, magic ou CRC diferentes -> o
+    snapshot é ignorado (read devolve null) e o estado vem do banco.
+*/
+public record RiskStateSnapshot(long createdAtMillis, long databaseEpoch, long highWaterMark,
+                                List<VelocityEngine.AccountEvents> velocity,
+                                List<LastSeenCache.Snapshot> lastSeen,
+                                List<SharedEntityIndex.EntityUses> devices,
+                                List<SharedEntityIndex.EntityUses> ips,
+                                long[] receiverFilter) {
+
+    static final int MAGIC = 0x52534E50; // "RSNP"
+    static final int VERSION = 2;
+    static final int HEADER = 40;        // magic(4) + versão(4) + criação(8) + banco(8) + marca d'água(8) + tamanho(4) + crc(4)
+
+    public void write(Path path) {
+        byte[] payload = encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.deleteIfExists(tmp);
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + payload.length);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putLong(createdAtMillis);
+                buffer.putLong(databaseEpoch);
+                buffer.putLong(highWaterMark);
+                buffer.putInt(payload.length);
+                buffer.putInt((int) crc.getValue());
+                buffer.put(payload);
+                buffer.force();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar o snapshot " + path, e);
+        }
+    }
+
+    // Snapshot válido do arquivo, ou null se ausente, de outra versão ou corrompido
+    public static RiskStateSnapshot read(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return null;
+            }
+            long createdAt = buffer.getLong(8);
+            long databaseEpoch = buffer.getLong(16);
+            long highWaterMark = buffer.getLong(24);
+            int length = buffer.getInt(32);
+            if (length < 0 || HEADER + (long) length > size) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(HEADER, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(36)) {
+                return null;
+            }
+            return decode(createdAt, databaseEpoch, highWaterMark, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o snapshot " + path, e);
+        }
+    }
+
+    private byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(velocity.size());
+            for (VelocityEngine.AccountEvents a : velocity) {
+                out.writeUTF(a.sender());
+                out.writeInt(a.times().length);
+                for (int i = 0; i < a.times().length; i++) {
+                    out.writeLong(a.times()[i]);
+                    writeString(out, a.receivers()[i]);
+                }
+            }
+            out.writeInt(lastSeen.size());
+            for (LastSeenCache.Snapshot s : lastSeen) {
+                out.writeUTF(s.senderAccountId());
+                out.writeBoolean(s.complete());
+                LastSeen last = s.lastSeen();
+                out.writeBoolean(last != null);
+                if (last != null) {
+                    writeString(out, last.channel());
+                    writeString(out, last.deviceId());
+                    writeString(out, last.geoLocation());
+                    writeTime(out, last.timestamp());
+                }
+            }
+            writeUses(out, devices);
+            writeUses(out, ips);
+            out.writeInt(receiverFilter.length);
+            for (long word : receiverFilter) {
+                out.writeLong(word);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static RiskStateSnapshot decode(long createdAt, long databaseEpoch, long highWaterMark, byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int accounts = in.readInt();
+            List<VelocityEngine.AccountEvents> velocity = new ArrayList<>(accounts);
+            for (int a = 0; a < accounts; a++) {
+                String sender = in.readUTF();
+                int n = in.readInt();
+                long[] times = new long[n];
+                String[] receivers = new String[n];
+                for (int i = 0; i < n; i++) {
+                    times[i] = in.readLong();
+                    receivers[i] = readString(in);
+                }
+                velocity.add(new VelocityEngine.AccountEvents(sender, times, receivers));
+            }
+            int entries = in.readInt();
+            List<LastSeenCache.Snapshot> lastSeen = new ArrayList<>(entries);
+            for (int e = 0; e < entries; e++) {
+                String sender = in.readUTF();
+                boolean complete = in.readBoolean();
+                LastSeen last = in.readBoolean()
+                        ? new LastSeen(readString(in), readString(in), readString(in), readTime(in))
+                        : null;
+                lastSeen.add(new LastSeenCache.Snapshot(sender, last, complete));
+            }
+            List<SharedEntityIndex.EntityUses> devices = readUses(in);
+            List<SharedEntityIndex.EntityUses> ips = readUses(in);
+            long[] filter = new long[in.readInt()];
+            for (int i = 0; i < filter.length; i++) {
+                filter[i] = in.readLong();
+            }
+            return new RiskStateSnapshot(createdAt, databaseEpoch, highWaterMark, velocity, lastSeen, devices, ips, filter);
+        }
+    }
+
+    private static void writeUses(DataOutputStream out, List<SharedEntityIndex.EntityUses> uses) throws IOException {
+        out.writeInt(uses.size());
+        for (SharedEntityIndex.EntityUses u : uses) {
+            out.writeUTF(u.key());
+            out.writeInt(u.senders().length);
+            for (int i = 0; i < u.senders().length; i++) {
+                out.writeLong(u.senders()[i]);
+                out.writeLong(u.times()[i]);
+            }
+        }
+    }
+
+    private static List<SharedEntityIndex.EntityUses> readUses(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<SharedEntityIndex.EntityUses> result = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            String key = in.readUTF();
+            int n = in.readInt();
+            long[] senders = new long[n];
+            long[] times = new long[n];
+            for (int i = 0; i < n; i++) {
+                senders[i] = in.readLong();
+                times[i] = in.readLong();
+            }
+            result.add(new SharedEntityIndex.EntityUses(key, senders, times));
+        }
+        return result;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,192 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.DatabaseEpoch;
+import com.projeto.antifraud.repository.DatabaseEpochRepository;
+import com.projeto.antifraud.repository.RiskStateEventView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+
+/*
+  Snapshot periódico e restauração do estado de risco em memória.
+  - Desligado por padrão (antifraud.snapshot.enabled): só faz sentido com
+    um banco persistente; o H2 em memória é recriado a cada inicialização.
+  - Inicialização: com um snapshot válido, recente (max-age-minutes) e do
+    mesmo banco (DatabaseEpoch, marca d'água não além do maior id), o
+    estado é restaurado dele (janelas de velocidade pelos shards) e só as
+    transações com id acima da marca d'água são reaplicadas, em páginas por
+    id. Sem snapshot, cada componente é aquecido do banco como antes.
+  - A reaplicação é idempotente: transações gravadas depois da marca d'água
+    mas já presentes no snapshot não contam duas vezes.
+  - A marca d'água é lida antes de copiar o estado: toda transação com id
+    até ela já foi registrada em memória (o registro precede a gravação).
+  - Grava a cada interval-ms e no encerramento.
+*/
+@Component
+public class RiskStateSnapshotter {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskStateSnapshotter.class);
+
+    static final int CATCH_UP_PAGE = 5_000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private VelocityEngine velocityEngine;
+
+    @Autowired
+    private LastSeenCache lastSeenCache;
+
+    @Autowired
+    private SharedEntityIndex sharedEntityIndex;
+
+    @Autowired
+    private KnownReceiverIndex knownReceiverIndex;
+
+    @Autowired
+    private DatabaseEpochRepository databaseEpochRepository;
+
+    @Value("${antifraud.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${antifraud.snapshot.path:data/risk-state.snapshot}")
+    private String path;
+
+    @Value("${antifraud.snapshot.max-age-minutes:1440}")
+    private long maxAgeMinutes;
+
+    private volatile boolean ready;
+    private long databaseEpoch;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreOrWarmUp() {
+        long start = System.nanoTime();
+        RiskStateSnapshot snapshot = null;
+        if (enabled) {
+            databaseEpoch = databaseEpoch();
+            snapshot = usable(RiskStateSnapshot.read(Path.of(path)), databaseEpoch, transactionRepository.findMaxId());
+        }
+        if (snapshot != null) {
+            restore(snapshot);
+            long replayed = catchUp(snapshot.highWaterMark());
+            log.info("Estado restaurado do snapshot ({} contas) e {} transação(ões) reaplicada(s) em {} ms",
+                    snapshot.velocity().size(), replayed, (System.nanoTime() - start) / 1_000_000);
+        } else {
+            velocityEngine.warmUp();
+            sharedEntityIndex.warmUp();
+            knownReceiverIndex.warmUp();
+            log.info("Estado aquecido do banco em {} ms", (System.nanoTime() - start) / 1_000_000);
+        }
+        ready = true;
+    }
+
+    @Scheduled(fixedDelayString = "${antifraud.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        if (!enabled || !ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        RiskStateSnapshot snapshot = capture();
+        snapshot.write(Path.of(path));
+        if (log.isDebugEnabled()) {
+            log.debug("Snapshot de estado gravado ({} contas, marca d'água {}) em {} ms",
+                    snapshot.velocity().size(), snapshot.highWaterMark(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    // O snapshot lido, ou null se antigo, de outro banco ou com marca d'água além do banco atual
+    RiskStateSnapshot usable(RiskStateSnapshot snapshot, long epoch, Long maxId) {
+        if (snapshot == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - snapshot.createdAtMillis() > Duration.ofMinutes(maxAgeMinutes).toMillis()) {
+            log.info("Snapshot de estado ignorado: mais antigo que {} min", maxAgeMinutes);
+            return null;
+        }
+        if (snapshot.databaseEpoch() != epoch) {
+            log.info("Snapshot de estado ignorado: gravado para outro banco");
+            return null;
+        }
+        long highest = maxId != null ? maxId : 0L;
+        if (snapshot.highWaterMark() > highest) {
+            log.info("Snapshot de estado ignorado: marca d'água {} além do maior id do banco ({})",
+                    snapshot.highWaterMark(), highest);
+            return null;
+        }
+        return snapshot;
+    }
+
+    // Identidade do banco, criada na primeira inicialização (outra instância pode criá-la ao mesmo tempo)
+    private long databaseEpoch() {
+        return databaseEpochRepository.findById(DatabaseEpoch.SINGLETON_ID).orElseGet(() -> {
+            try {
+                return databaseEpochRepository.save(new DatabaseEpoch(new SecureRandom().nextLong()));
+            } catch (DataIntegrityViolationException e) {
+                return databaseEpochRepository.findById(DatabaseEpoch.SINGLETON_ID).orElseThrow(() -> e);
+            }
+        }).getEpoch();
+    }
+
+    RiskStateSnapshot capture() {
+        Long maxId = transactionRepository.findMaxId();
+        long createdAt = System.currentTimeMillis();
+        return new RiskStateSnapshot(createdAt, databaseEpoch, maxId != null ? maxId : 0L,
+                velocityEngine.export(), lastSeenCache.export(),
+                sharedEntityIndex.exportDevices(), sharedEntityIndex.exportIps(),
+                knownReceiverIndex.exportFilter());
+    }
+
+    void restore(RiskStateSnapshot snapshot) {
+        velocityEngine.restore(snapshot.velocity());
+        lastSeenCache.restore(snapshot.lastSeen());
+        sharedEntityIndex.restoreDevices(snapshot.devices());
+        sharedEntityIndex.restoreIps(snapshot.ips());
+        if (!knownReceiverIndex.restoreFilter(snapshot.receiverFilter())) {
+            knownReceiverIndex.warmUp();
+        }
+    }
+
+    // Reaplica as transações gravadas depois da marca d'água, em páginas por id
+    long catchUp(long highWaterMark) {
+        long replayed = 0;
+        long after = highWaterMark;
+        List<RiskStateEventView> page;
+        do {
+            page = transactionRepository.findStateEventsByIdGreaterThanOrderByIdAsc(after, Limit.of(CATCH_UP_PAGE));
+            velocityEngine.replay(page);
+            for (RiskStateEventView e : page) {
+                if (e.getTimestamp() != null) {
+                    lastSeenCache.record(e.getSenderAccountId(),
+                            new LastSeen(e.getChannel(), e.getDeviceId(), e.getGeoLocation(), e.getTimestamp()));
+                }
+                sharedEntityIndex.record(e.getSenderAccountId(), e.getIpAddress(), e.getDeviceId(), e.getTimestamp());
+                knownReceiverIndex.markSeen(e.getReceiverAccountId());
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+            replayed += page.size();
+        } while (page.size() == CATCH_UP_PAGE);
+        return replayed;
+    }
+}
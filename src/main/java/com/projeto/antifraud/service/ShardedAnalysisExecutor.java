@@ -0,0 +1,174 @@
+package com.projeto.antifraud.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/*
+  Executor de análise particionado por remetente (single-writer).
+  - senderAccountId -> um de N shards; cada shard é uma thread dedicada com
+    fila própria. Todas as análises de uma conta passam pela mesma thread,
+    em ordem de chegada.
+  - O estado por conta (anéis do VelocityEngine) só é lido e escrito pela
+    thread do shard da conta: "ler a janela, decidir, registrar" é atômico
+    por conta sem nenhum lock, e duas requisições simultâneas da mesma conta
+    não passam juntas pela regra de modo pânico.
+  - Contas diferentes não disputam nada: a vazão escala com o número de
+    shards (padrão: um por núcleo).
+  - Fila limitada por shard: com a fila cheia o chamador espera (contrapressão).
+  - broadcast executa uma tarefa em todos os shards (aquecimento, limpeza).
+  - Uma tarefa de shard nunca deve esperar outro shard; chamadas feitas de
+    dentro do próprio shard rodam direto.
+  - Uma tarefa de shard também não vai ao banco: consultas são resolvidas
+    antes, na thread do chamador (RiskContextLoader.prefetch / pré-carga do lote).
+*/
+@Component
+public class ShardedAnalysisExecutor {
+
+    private final Shard[] shards;
+
+    public ShardedAnalysisExecutor(@Value("${antifraud.analysis.shards:0}") int shardCount,
+                                   @Value("${antifraud.analysis.shard-queue-capacity:1024}") int queueCapacity) {
+        int n = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(String senderAccountId) {
+        if (senderAccountId == null) {
+            return 0;
+        }
+        int h = senderAccountId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    // Executa no shard do remetente e espera o resultado
+    public <T> T call(String senderAccountId, Supplier<T> task) {
+        return await(submit(senderAccountId, task));
+    }
+
+    // Espera todas as tarefas; a primeira falha é relançada depois que todas terminam
+    public void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        for (CompletableFuture<?> f : futures) {
+            await(f);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String senderAccountId, Supplier<T> task) {
+        return shards[shardOf(senderAccountId)].submit(task);
+    }
+
+    // Executa a tarefa em todos os shards (recebe o índice do shard) e espera todos terminarem
+    public void broadcast(IntConsumer task) {
+        List<CompletableFuture<Object>> all = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            all.add(shard.submit(() -> {
+                task.accept(shard.index);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).join();
+    }
+
+    public int queueDepth(int shard) {
+        return shards[shard].queue.size();
+    }
+
+    public int[] queueDepths() {
+        int[] depths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            depths[i] = shards[i].queue.size();
+        }
+        return depths;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            shard.thread.interrupt();
+        }
+    }
+
+    private static final class Shard {
+        private final int index;
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::run, "analysis-shard-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            if (Thread.currentThread() == thread) {
+                try {
+                    return CompletableFuture.completedFuture(task.get());
+                } catch (RuntimeException | Error e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Runnable work = () -> {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            };
+            try {
+                queue.put(work);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+        private void run() {
+            while (running) {
+                try {
+                    queue.take().run();
+                } catch (InterruptedException e) {
+                    // shutdown: o laço verifica running
+                }
+                // Uma tarefa que restaurou a interrupção não pode derrubar o shard
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.SharedEntityEventView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+  Índice em memória IP / dispositivo -> contas remetentes distintas em uma
+  janela deslizante (golpe da "falsa central": um aparelho ou IP operando
+  muitas contas de vítimas).
+  - Cada IP/dispositivo guarda arrays primitivos compactos: hash de 64 bits
+    do remetente e o instante do último uso; nenhuma String por entrada.
+  - Usos mais antigos que a janela são descartados na próxima atualização;
+    entidades sem uso recente são removidas periodicamente.
+  - Até MAX_ACCOUNTS contas por entidade (acima disso a contagem satura,
+    substituindo a conta de uso mais antigo).
+  - Um mesmo IP/dispositivo aparece em contas de shards diferentes, então
+    cada janela tem um lock próprio (seção crítica curta, sem I/O).
+  - Na inicialização o estado vem do snapshot (RiskStateSnapshotter) ou,
+    sem snapshot, é aquecido com as transações ainda dentro da janela.
+*/
+@Component
+public class SharedEntityIndex {
+
+    public static final int MAX_ACCOUNTS = 64;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final long windowMinutes;
+    private final long windowMillis;
+    private final ConcurrentHashMap<String, AccountWindow> devices = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AccountWindow> ips = new ConcurrentHashMap<>();
+
+    public SharedEntityIndex(@Value("${antifraud.shared-entity.window-minutes:60}") long windowMinutes) {
+        this.windowMinutes = windowMinutes;
+        this.windowMillis = windowMinutes * 60_000;
+    }
+
+    // Registra o uso do IP e do dispositivo pelo remetente
+    public void record(Transaction transaction) {
+        record(transaction.getSenderAccountId(), transaction.getIpAddress(), transaction.getDeviceId(),
+                transaction.getTimestamp());
+    }
+
+    public void record(String senderAccountId, String ipAddress, String deviceId, LocalDateTime timestamp) {
+        if (senderAccountId == null || timestamp == null) {
+            return;
+        }
+        long sender = BloomFilter.hash64(senderAccountId);
+        long time = VelocityEngine.toMillis(timestamp);
+        if (deviceId != null && !deviceId.isBlank()) {
+            devices.computeIfAbsent(deviceId, k -> new AccountWindow()).touch(sender, time, time - windowMillis);
+        }
+        if (ipAddress != null && !ipAddress.isBlank()) {
+            ips.computeIfAbsent(ipAddress, k -> new AccountWindow()).touch(sender, time, time - windowMillis);
+        }
+    }
+
+    // Contas distintas que usaram o dispositivo na janela até "at", incluindo o remetente atual
+    public int accountsOnDevice(String deviceId, String senderAccountId, LocalDateTime at) {
+        return accounts(devices, deviceId, senderAccountId, at);
+    }
+
+    // Contas distintas que usaram o IP na janela até "at", incluindo o remetente atual
+    public int accountsOnIp(String ipAddress, String senderAccountId, LocalDateTime at) {
+        return accounts(ips, ipAddress, senderAccountId, at);
+    }
+
+    public int trackedDevices() {
+        return devices.size();
+    }
+
+    public int trackedIps() {
+        return ips.size();
+    }
+
+    // Aquece o índice com os usos ainda dentro da janela (sem snapshot)
+    public void warmUp() {
+        LocalDateTime from = LocalDateTime.now().minusMinutes(windowMinutes);
+        for (SharedEntityEventView e : transactionRepository.findSharedEntityEventsByTimestampAfter(from)) {
+            record(e.getSenderAccountId(), e.getIpAddress(), e.getDeviceId(), e.getTimestamp());
+        }
+    }
+
+    public List<EntityUses> exportDevices() {
+        return export(devices);
+    }
+
+    public List<EntityUses> exportIps() {
+        return export(ips);
+    }
+
+    public void restoreDevices(List<EntityUses> uses) {
+        restore(devices, uses);
+    }
+
+    public void restoreIps(List<EntityUses> uses) {
+        restore(ips, uses);
+    }
+
+    // Remove IPs/dispositivos sem uso registrado dentro da janela
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        devices.values().removeIf(w -> w.lastTouched() < cutoff);
+        ips.values().removeIf(w -> w.lastTouched() < cutoff);
+    }
+
+    // Remove IPs/dispositivos sem uso dentro da janela que termina em "at" (relógio dos próprios eventos, backtest)
+    public void evictBefore(LocalDateTime at) {
+        long horizon = VelocityEngine.toMillis(at) - windowMillis;
+        devices.values().removeIf(w -> w.newest() <= horizon);
+        ips.values().removeIf(w -> w.newest() <= horizon);
+    }
+
+    private int accounts(Map<String, AccountWindow> index, String key, String senderAccountId, LocalDateTime at) {
+        if (key == null || senderAccountId == null || at == null) {
+            return 0;
+        }
+        AccountWindow window = index.get(key);
+        long sender = BloomFilter.hash64(senderAccountId);
+        long time = VelocityEngine.toMillis(at);
+        return window != null ? window.countIncluding(sender, time - windowMillis) : 1;
+    }
+
+    private static List<EntityUses> export(Map<String, AccountWindow> index) {
+        List<EntityUses> result = new ArrayList<>(index.size());
+        index.forEach((key, window) -> result.add(window.export(key)));
+        return result;
+    }
+
+    // Restauração idempotente: cada par (remetente, instante) passa pelo mesmo merge do registro
+    private static void restore(Map<String, AccountWindow> index, List<EntityUses> uses) {
+        for (EntityUses u : uses) {
+            AccountWindow window = index.computeIfAbsent(u.key(), k -> new AccountWindow());
+            for (int i = 0; i < u.senders().length; i++) {
+                window.touch(u.senders()[i], u.times()[i], Long.MIN_VALUE);
+            }
+        }
+    }
+
+    // Usos de um IP/dispositivo: hash do remetente e último uso (epoch millis UTC)
+    public record EntityUses(String key, long[] senders, long[] times) {
+    }
+
+    /*
+      Contas que usaram um IP/dispositivo: pares (hash do remetente, último uso)
+      em arrays paralelos, crescendo sob demanda até MAX_ACCOUNTS.
+    */
+    static final class AccountWindow {
+        private long[] senders = new long[4];
+        private long[] times = new long[4];
+        private int size;
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        synchronized void touch(long sender, long time, long horizon) {
+            lastTouched = System.currentTimeMillis();
+            expire(horizon);
+            for (int i = 0; i < size; i++) {
+                if (senders[i] == sender) {
+                    times[i] = Math.max(times[i], time);
+                    return;
+                }
+            }
+            if (time <= horizon) {
+                return;
+            }
+            if (size == senders.length) {
+                if (size == MAX_ACCOUNTS) {
+                    int oldest = 0;
+                    for (int i = 1; i < size; i++) {
+                        if (times[i] < times[oldest]) {
+                            oldest = i;
+                        }
+                    }
+                    senders[oldest] = sender;
+                    times[oldest] = time;
+                    return;
+                }
+                int capacity = Math.min(MAX_ACCOUNTS, size * 2);
+                senders = Arrays.copyOf(senders, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            senders[size] = sender;
+            times[size] = time;
+            size++;
+        }
+
+        // Contas com uso após o horizonte, contando o remetente informado mesmo que não esteja na janela
+        synchronized int countIncluding(long sender, long horizon) {
+            int count = 0;
+            boolean seen = false;
+            for (int i = 0; i < size; i++) {
+                if (times[i] > horizon) {
+                    count++;
+                    seen |= senders[i] == sender;
+                }
+            }
+            return seen ? count : count + 1;
+        }
+
+        synchronized EntityUses export(String key) {
+            return new EntityUses(key, Arrays.copyOf(senders, size), Arrays.copyOf(times, size));
+        }
+
+        long lastTouched() {
+            return lastTouched;
+        }
+
+        synchronized long newest() {
+            long newest = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                newest = Math.max(newest, times[i]);
+            }
+            return newest;
+        }
+
+        // Compacta os arrays removendo usos anteriores ao horizonte
+        private void expire(long horizon) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (times[i] > horizon) {
+                    senders[kept] = senders[i];
+                    times[kept] = times[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
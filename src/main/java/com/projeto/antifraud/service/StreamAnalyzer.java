@@ -0,0 +1,141 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.dto.RiskVerdict;
+import com.projeto.antifraud.dto.TransactionRequest;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+  Análise de um fluxo NDJSON (uma transação por linha) com respostas incrementais.
+  - Lê uma linha por vez (MappingIterator), sem carregar o corpo inteiro.
+  - Até max-in-flight transações em análise ao mesmo tempo (virtual threads);
+    com a janela cheia a leitura para até a mais antiga terminar: a
+    contrapressão chega ao cliente pelo TCP.
+  - Os veredictos saem na ordem de entrada, um por linha, assim que a cabeça
+    da janela é decidida; o flush é feito antes de cada espera e no fim.
+  - Transações do mesmo remetente dentro da janela são encadeadas: cada uma
+    vê o estado (velocidade, última transação) da anterior, como em
+    chamadas sequenciais.
+  - Memória limitada pela janela, independentemente do tamanho do fluxo.
+  - Falha ao analisar uma linha gera uma linha {"line": n, "error": ...} e
+    o fluxo continua; JSON inválido encerra o fluxo.
+*/
+@Component
+public class StreamAnalyzer {
+
+    @Autowired
+    private RiskAnalysisService riskAnalysisService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${antifraud.stream.max-in-flight:256}")
+    private int maxInFlight;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private record InFlight(long line, String sender, CompletableFuture<RiskVerdict> verdict) {
+    }
+
+    public record LineError(long line, String error) {
+    }
+
+    public long analyze(InputStream in, OutputStream out) {
+        ObjectWriter verdictWriter = objectMapper.writerFor(RiskVerdict.class);
+        ObjectWriter errorWriter = objectMapper.writerFor(LineError.class);
+        ArrayDeque<InFlight> window = new ArrayDeque<>(maxInFlight);
+        // Última análise pendente de cada remetente na janela (só acessado por esta thread)
+        Map<String, CompletableFuture<RiskVerdict>> tails = new HashMap<>();
+        long lines = 0;
+
+        try (MappingIterator<TransactionRequest> it = objectMapper.readerFor(TransactionRequest.class).readValues(in)) {
+            while (it.hasNextValue()) {
+                TransactionRequest request = it.nextValue();
+                lines++;
+                if (window.size() == maxInFlight) {
+                    flush(out);
+                    write(window.poll(), tails, verdictWriter, errorWriter, out);
+                }
+                window.add(submit(lines, request, tails));
+                while (!window.isEmpty() && window.peek().verdict().isDone()) {
+                    write(window.poll(), tails, verdictWriter, errorWriter, out);
+                }
+            }
+            while (!window.isEmpty()) {
+                if (!window.peek().verdict().isDone()) {
+                    flush(out);
+                }
+                write(window.poll(), tails, verdictWriter, errorWriter, out);
+            }
+            flush(out);
+        }
+        return lines;
+    }
+
+    private InFlight submit(long line, TransactionRequest request, Map<String, CompletableFuture<RiskVerdict>> tails) {
+        String sender = request.senderAccountId();
+        CompletableFuture<RiskVerdict> previous = sender != null ? tails.get(sender) : null;
+        CompletableFuture<RiskVerdict> verdict = previous == null
+                ? CompletableFuture.supplyAsync(() -> analyze(request), executor)
+                // Após a anterior do mesmo remetente, tenha ela falhado ou não
+                : previous.handle((v, e) -> null).thenApplyAsync(ignored -> analyze(request), executor);
+        if (sender != null) {
+            tails.put(sender, verdict);
+        }
+        return new InFlight(line, sender, verdict);
+    }
+
+    private RiskVerdict analyze(TransactionRequest request) {
+        return RiskVerdict.of(riskAnalysisService.analyzeTransaction(request.toEntity()));
+    }
+
+    private void write(InFlight head, Map<String, CompletableFuture<RiskVerdict>> tails,
+                       ObjectWriter verdictWriter, ObjectWriter errorWriter, OutputStream out) {
+        if (head.sender() != null) {
+            tails.remove(head.sender(), head.verdict());
+        }
+        byte[] json;
+        try {
+            json = verdictWriter.writeValueAsBytes(head.verdict().join());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            json = errorWriter.writeValueAsBytes(new LineError(head.line(), String.valueOf(cause.getMessage())));
+        }
+        try {
+            out.write(json);
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cliente encerrou o fluxo", e);
+        }
+    }
+
+    private static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cliente encerrou o fluxo", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,279 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.repository.VelocityEventView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+  Motor de velocidade em memória por conta remetente.
+  - Para cada remetente mantém um anel limitado com os eventos recentes
+    (instante + recebedor), ordenado por tempo.
+  - "Quantas transações desde T" é respondido com busca binária no anel (O(log n));
+    "quantos recebedores distintos desde T" varre apenas a janela pedida.
+  - Eventos mais antigos que RETENTION (a maior janela usada pelas regras)
+    ou além de CAPACITY são descartados; contas sem atividade são removidas
+    periodicamente.
+  - Na inicialização o estado vem do snapshot (RiskStateSnapshotter) ou,
+    sem snapshot, o motor é aquecido com as transações da última hora.
+  - Single-writer: o anel de uma conta só é acessado pela thread do shard
+    da conta (ShardedAnalysisExecutor); por isso os anéis não têm lock.
+    Aquecimento, limpeza, snapshot e restauração também rodam em cada shard,
+    sobre as próprias contas.
+*/
+@Component
+public class VelocityEngine {
+
+    public static final Duration RETENTION = Duration.ofHours(1);
+    static final int CAPACITY = 256;
+
+    private static final long RETENTION_MILLIS = RETENTION.toMillis();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ShardedAnalysisExecutor shardedAnalysisExecutor;
+
+    private final ConcurrentHashMap<String, EventRing> rings = new ConcurrentHashMap<>();
+
+    // Registra uma transação analisada na janela do remetente
+    public void record(Transaction transaction) {
+        record(transaction.getSenderAccountId(), transaction.getReceiverAccountId(), transaction.getTimestamp());
+    }
+
+    public void record(String senderAccountId, String receiverAccountId, LocalDateTime timestamp) {
+        if (senderAccountId == null || timestamp == null) {
+            return;
+        }
+        EventRing ring = rings.computeIfAbsent(senderAccountId, k -> new EventRing());
+        ring.add(toMillis(timestamp), receiverAccountId);
+    }
+
+    // Número de transações do remetente com timestamp estritamente posterior a "since"
+    public int countSince(String senderAccountId, LocalDateTime since) {
+        EventRing ring = senderAccountId != null ? rings.get(senderAccountId) : null;
+        return ring != null ? ring.countAfter(toMillis(since)) : 0;
+    }
+
+    // Recebedores distintos do remetente após "since", incluindo o recebedor atual (se houver)
+    public int distinctReceiversSince(String senderAccountId, LocalDateTime since, String currentReceiver) {
+        EventRing ring = senderAccountId != null ? rings.get(senderAccountId) : null;
+        if (ring == null) {
+            return currentReceiver != null ? 1 : 0;
+        }
+        return ring.distinctReceiversAfter(toMillis(since), currentReceiver);
+    }
+
+    public int trackedAccounts() {
+        return rings.size();
+    }
+
+    // Aquece o motor com as transações ainda dentro da retenção (sem snapshot); cada shard grava as próprias contas
+    public void warmUp() {
+        LocalDateTime from = LocalDateTime.now().minus(RETENTION);
+        List<List<VelocityEventView>> byShard = byShard();
+        for (VelocityEventView e : transactionRepository.findVelocityEventsByTimestampAfterOrderByTimestampAsc(from)) {
+            byShard.get(shardedAnalysisExecutor.shardOf(e.getSenderAccountId())).add(e);
+        }
+        shardedAnalysisExecutor.broadcast(shard -> {
+            for (VelocityEventView e : byShard.get(shard)) {
+                record(e.getSenderAccountId(), e.getReceiverAccountId(), e.getTimestamp());
+            }
+        });
+    }
+
+    // Reaplica eventos posteriores ao snapshot; eventos já presentes no anel são ignorados
+    public void replay(List<? extends VelocityEventView> events) {
+        long horizon = toMillis(LocalDateTime.now().minus(RETENTION));
+        List<List<VelocityEventView>> byShard = byShard();
+        for (VelocityEventView e : events) {
+            if (e.getSenderAccountId() != null && e.getTimestamp() != null && toMillis(e.getTimestamp()) > horizon) {
+                byShard.get(shardedAnalysisExecutor.shardOf(e.getSenderAccountId())).add(e);
+            }
+        }
+        shardedAnalysisExecutor.broadcast(shard -> {
+            for (VelocityEventView e : byShard.get(shard)) {
+                rings.computeIfAbsent(e.getSenderAccountId(), k -> new EventRing())
+                        .addIfAbsent(toMillis(e.getTimestamp()), e.getReceiverAccountId());
+            }
+        });
+    }
+
+    // Cópia das janelas de todas as contas, lida por cada shard sobre as próprias contas
+    public List<AccountEvents> export() {
+        List<List<AccountEvents>> byShard = byShard();
+        shardedAnalysisExecutor.broadcast(shard -> rings.forEach((sender, ring) -> {
+            if (shardedAnalysisExecutor.shardOf(sender) == shard) {
+                byShard.get(shard).add(ring.export(sender));
+            }
+        }));
+        List<AccountEvents> result = new ArrayList<>();
+        byShard.forEach(result::addAll);
+        return result;
+    }
+
+    // Restaura janelas de um snapshot; cada shard grava as próprias contas
+    public void restore(List<AccountEvents> accounts) {
+        List<List<AccountEvents>> byShard = byShard();
+        for (AccountEvents a : accounts) {
+            byShard.get(shardedAnalysisExecutor.shardOf(a.sender())).add(a);
+        }
+        shardedAnalysisExecutor.broadcast(shard -> {
+            for (AccountEvents a : byShard.get(shard)) {
+                EventRing ring = rings.computeIfAbsent(a.sender(), k -> new EventRing());
+                for (int i = 0; i < a.times().length; i++) {
+                    ring.addIfAbsent(a.times()[i], a.receivers()[i]);
+                }
+            }
+        });
+    }
+
+    // Remove contas sem eventos registrados dentro da retenção (cada shard remove as próprias)
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - RETENTION_MILLIS;
+        shardedAnalysisExecutor.broadcast(shard -> rings.entrySet().removeIf(e ->
+                shardedAnalysisExecutor.shardOf(e.getKey()) == shard && e.getValue().lastTouched() < cutoff));
+    }
+
+    // Remove contas cujo evento mais recente não é posterior a "horizon" (relógio dos próprios eventos).
+    // Para instâncias fora dos shards (backtest), com uma única thread escrevendo no momento da chamada
+    public void evictBefore(LocalDateTime horizon) {
+        long cutoff = toMillis(horizon);
+        rings.values().removeIf(ring -> ring.newest() <= cutoff);
+    }
+
+    private <T> List<List<T>> byShard() {
+        List<List<T>> byShard = new ArrayList<>();
+        for (int i = 0; i < shardedAnalysisExecutor.shardCount(); i++) {
+            byShard.add(new ArrayList<>());
+        }
+        return byShard;
+    }
+
+    static long toMillis(LocalDateTime ts) {
+        return ts.toEpochSecond(ZoneOffset.UTC) * 1000L + ts.getNano() / 1_000_000;
+    }
+
+    // Janela de um remetente (instantes em epoch millis UTC e recebedores, em ordem de tempo)
+    public record AccountEvents(String sender, long[] times, String[] receivers) {
+    }
+
+    /*
+      Anel circular de eventos de um remetente, ordenado por tempo.
+      - Inserções fora de ordem (raras) são posicionadas por deslocamento.
+      - Sem sincronização: acessado apenas pela thread do shard da conta.
+    */
+    static final class EventRing {
+        private final long[] times = new long[CAPACITY];
+        private final String[] receivers = new String[CAPACITY];
+        private int head;   // índice do evento mais antigo
+        private int size;
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        void add(long time, String receiver) {
+            lastTouched = System.currentTimeMillis();
+            if (size == CAPACITY) {
+                dropOldest();
+            }
+            int pos = size;
+            // Desloca eventos mais novos para manter a ordem temporal
+            while (pos > 0 && times[slot(pos - 1)] > time) {
+                times[slot(pos)] = times[slot(pos - 1)];
+                receivers[slot(pos)] = receivers[slot(pos - 1)];
+                pos--;
+            }
+            times[slot(pos)] = time;
+            receivers[slot(pos)] = receiver;
+            size++;
+
+            long horizon = times[slot(size - 1)] - RETENTION_MILLIS;
+            while (size > 0 && times[head] <= horizon) {
+                dropOldest();
+            }
+        }
+
+        // Idempotente: evento com o mesmo instante e recebedor já no anel não é repetido
+        void addIfAbsent(long time, String receiver) {
+            for (int i = firstAfter(time - 1); i < size && times[slot(i)] == time; i++) {
+                if (Objects.equals(receivers[slot(i)], receiver)) {
+                    return;
+                }
+            }
+            add(time, receiver);
+        }
+
+        AccountEvents export(String sender) {
+            long[] t = new long[size];
+            String[] r = new String[size];
+            for (int i = 0; i < size; i++) {
+                t[i] = times[slot(i)];
+                r[i] = receivers[slot(i)];
+            }
+            return new AccountEvents(sender, t, r);
+        }
+
+        int countAfter(long since) {
+            return size - firstAfter(since);
+        }
+
+        int distinctReceiversAfter(long since, String currentReceiver) {
+            Set<String> distinct = new HashSet<>();
+            if (currentReceiver != null) {
+                distinct.add(currentReceiver);
+            }
+            for (int i = firstAfter(since); i < size; i++) {
+                String r = receivers[slot(i)];
+                if (r != null) {
+                    distinct.add(r);
+                }
+            }
+            return distinct.size();
+        }
+
+        long lastTouched() {
+            return lastTouched;
+        }
+
+        long newest() {
+            return size > 0 ? times[slot(size - 1)] : Long.MIN_VALUE;
+        }
+
+        // Busca binária: posição lógica do primeiro evento com tempo > since
+        private int firstAfter(long since) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[slot(mid)] > since) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+
+        private void dropOldest() {
+            receivers[head] = null;
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+
+        private int slot(int logical) {
+            return (head + logical) % CAPACITY;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.projeto.antifraud.service.backtest;
+
+import com.projeto.antifraud.entity.RiskReason;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/*
+  Resultado de um backtest (BacktestRunner).
+  - thresholdsVersion: versão dos limites das regras usada do início ao fim.
+  - archivedBefore: só a tabela quente é lida; com a retenção ligada,
+    transações anteriores a este instante podem já estar no arquivo e ficam
+    fora da contagem. null com a retenção desligada.
+  - Vazão: transações, páginas, tempo total, tempo lendo do banco e avaliando, transações/s.
+  - Taxas de alerta: armazenada (isSuspicious gravado) x reprocessada.
+  - rules: acertos de cada regra avaliada isoladamente (todas as regras rodam em
+    toda transação), em ordem de prioridade.
+  - reasons: distribuição dos códigos dos vereditos reprocessados.
+  - diff: vereditos que mudaram em relação ao gravado.
+*/
+public record BacktestReport(String mode, long thresholdsVersion, LocalDateTime from, LocalDateTime to,
+                             LocalDateTime archivedBefore,
+                             long transactions, long pages,
+                             long elapsedMillis, long fetchMillis, long evaluateMillis, double transactionsPerSecond,
+                             long storedFlagged, long replayFlagged, double storedFlagRate, double replayFlagRate,
+                             List<RuleRate> rules, Map<RiskReason, Long> reasons, Diff diff) {
+
+    public record RuleRate(String name, int priority, long hits, double hitRate) {
+    }
+
+    /*
+      Diferenças em relação ao veredito gravado.
+      - newlyFlagged: aprovada antes, suspeita agora; cleared: o inverso.
+      - reasonChanged: suspeita nos dois, com código diferente.
+      - transitions: "CÓDIGO_GRAVADO->CÓDIGO_NOVO" -> quantidade, só das diferenças
+        (UNKNOWN: mensagem gravada que não é uma constante de RiskReason).
+      - sampleTransactionIds: amostra (até 100) de transações divergentes, para inspeção.
+    */
+    public record Diff(long unchanged, long newlyFlagged, long cleared, long reasonChanged,
+                      Map<String, Long> transitions, List<Long> sampleTransactionIds) {
+    }
+}
@@ -0,0 +1,413 @@
+package com.projeto.antifraud.service.backtest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projeto.antifraud.entity.RiskContribution;
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.ReplayRowView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.BloomFilter;
+import com.projeto.antifraud.service.LastSeen;
+import com.projeto.antifraud.service.RiskAnalysisService;
+import com.projeto.antifraud.service.RiskContext;
+import com.projeto.antifraud.service.SharedEntityIndex;
+import com.projeto.antifraud.service.VelocityEngine;
+import com.projeto.antifraud.service.rule.RiskRule;
+import com.projeto.antifraud.service.rule.RuleEngine;
+import com.projeto.antifraud.service.rule.ScoreCard;
+import com.projeto.antifraud.service.rule.RiskThresholds;
+import com.projeto.antifraud.service.rule.RiskThresholdsRegistry;
+import com.projeto.antifraud.service.rule.ScoringPolicy;
+import com.projeto.antifraud.service.rule.ThresholdTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Backtest: reprocessa as transações gravadas pelo motor de regras, sem gravar
+  nada, e compara com os vereditos armazenados (isSuspicious / riskReason).
+  - Leitura em ordem (timestamp, id) por páginas keyset (findReplayPage): a
+    memória é limitada pelo tamanho da página, sem findAll e sem entidades
+    gerenciadas.
+  - Lê só a tabela quente: transações já arquivadas pela retenção
+    (RetentionCompactor) ficam fora do reprocessamento. Com a retenção
+    ligada, o relatório traz archivedBefore e um período pedido antes dele
+    é avisado no log.
+  - Estado isolado por execução: janelas de velocidade, última transação,
+    IP/dispositivo e recebedores conhecidos próprios. Os componentes de
+    produção (VelocityEngine, LastSeenCache, ...) e as estatísticas do
+    RuleEngine não são tocados.
+  - Atributos que cruzam contas (recebedor conhecido, contas por IP/dispositivo)
+    são calculados em sequência, na ordem da página. Depois as transações são
+    agrupadas por remetente e os grupos avaliados em paralelo (fork-join): cada
+    remetente está em um único grupo por página e as páginas são sequenciais,
+    então o estado de cada conta tem um único escritor, como nos shards.
+  - Todas as regras rodam em toda transação (taxa de acerto por regra); o
+    veredito segue o modo pedido: regra de maior prioridade ou pontuação
+    (ScoringPolicy, sem orçamento de latência).
+  - Limites das regras: a versão atual do RiskThresholdsRegistry é fixada no
+    início e vale para a execução inteira, resolvida por canal; o segmento do
+    cliente não é gravado, então overrides por segmento não se aplicam aqui.
+  - Memória limitada: contas e IPs/dispositivos sem eventos na janela saem
+    pelo relógio da reprodução; última transação guardada para até max-senders
+    contas (as que saem voltam como "sem histórico"); recebedores em Bloom
+    filter (um falso positivo trata o recebedor como conhecido e pode deixar
+    de disparar NEW_RECEIVER).
+  - O estado começa vazio em "from": a primeira hora reproduzida não tem
+    histórico de velocidade nem de última transação anterior a ela.
+*/
+@Component
+public class BacktestRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestRunner.class);
+
+    static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final int GROUPS_PER_TASK = 64;
+    static final int SAMPLE_SIZE = 100;
+    static final Duration EVICT_EVERY = Duration.ofMinutes(1);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RuleEngine ruleEngine;
+
+    @Autowired
+    private ScoringPolicy scoringPolicy;
+
+    @Autowired
+    private RiskThresholdsRegistry thresholdsRegistry;
+
+    @Value("${antifraud.analysis.mode:FIRST_MATCH}")
+    private RiskAnalysisService.Mode defaultMode;
+
+    @Value("${antifraud.shared-entity.window-minutes:60}")
+    private long sharedEntityWindowMinutes;
+
+    @Value("${antifraud.backtest.page-size:10000}")
+    private int defaultPageSize;
+
+    @Value("${antifraud.backtest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${antifraud.backtest.max-senders:2000000}")
+    private long maxSenders;
+
+    @Value("${antifraud.backtest.expected-receivers:10000000}")
+    private long expectedReceivers;
+
+    @Value("${antifraud.retention.enabled:false}")
+    private boolean retentionEnabled;
+
+    @Value("${antifraud.retention.hot-days:30}")
+    private long retentionHotDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Reprocessa [from, to); parâmetros nulos usam o início da tabela, agora, o modo configurado e a página padrão
+    public BacktestReport run(LocalDateTime from, LocalDateTime to, RiskAnalysisService.Mode mode, Integer pageSize) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Já existe um backtest em execução");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            Replay replay = new Replay(mode != null ? mode : defaultMode, pool);
+            LocalDateTime start = from != null ? from : BEGINNING;
+            LocalDateTime archivedBefore = archivedBefore();
+            if (archivedBefore != null && start.isBefore(archivedBefore)) {
+                log.warn("Backtest a partir de {}: transações anteriores a {} podem já estar arquivadas e ficam fora",
+                        start, archivedBefore);
+            }
+            return replay.run(start, to != null ? to : LocalDateTime.now(),
+                    pageSize != null && pageSize > 0 ? pageSize : defaultPageSize, archivedBefore);
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    // Corte da retenção: antes dele a tabela quente pode não ter mais as transações (null com a retenção desligada)
+    private LocalDateTime archivedBefore() {
+        return retentionEnabled ? LocalDateTime.now().minusDays(retentionHotDays) : null;
+    }
+
+    // Transação reconstruída da linha gravada, com os atributos que cruzam contas já calculados
+    private record Replayed(ReplayRowView row, Transaction transaction, boolean receiverKnown,
+                            int deviceAccounts, int ipAccounts) {
+    }
+
+    /*
+      Uma execução: estado isolado e contadores. Contadores são LongAdder
+      porque os grupos de remetentes são avaliados em paralelo.
+    */
+    private final class Replay {
+        private final RiskAnalysisService.Mode mode;
+        private final ForkJoinPool pool;
+        private final List<RiskRule> rules;
+        private final ThresholdTable thresholds = thresholdsRegistry.current();
+
+        private final VelocityEngine velocity = new VelocityEngine();
+        private final SharedEntityIndex shared = new SharedEntityIndex(sharedEntityWindowMinutes);
+        private final BloomFilter receivers = new BloomFilter(expectedReceivers, 0.01);
+        private final Cache<String, LastSeen> lastSeen = Caffeine.newBuilder().maximumSize(maxSenders).build();
+
+        private final LongAdder[] ruleHits;
+        private final LongAdder[] reasons = adders(RiskReason.values().length);
+        private final LongAdder storedFlagged = new LongAdder();
+        private final LongAdder replayFlagged = new LongAdder();
+        private final LongAdder unchanged = new LongAdder();
+        private final LongAdder newlyFlagged = new LongAdder();
+        private final LongAdder cleared = new LongAdder();
+        private final LongAdder reasonChanged = new LongAdder();
+        private final ConcurrentHashMap<String, LongAdder> transitions = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger sampled = new AtomicInteger();
+
+        Replay(RiskAnalysisService.Mode mode, ForkJoinPool pool) {
+            this.mode = mode;
+            this.pool = pool;
+            this.rules = ruleEngine.rules().stream().sorted(Comparator.comparingInt(RiskRule::priority)).toList();
+            this.ruleHits = adders(rules.size());
+        }
+
+        BacktestReport run(LocalDateTime from, LocalDateTime to, int pageSize, LocalDateTime archivedBefore) {
+            long start = System.nanoTime();
+            long fetchNanos = 0;
+            long evaluateNanos = 0;
+            long transactions = 0;
+            long pages = 0;
+            LocalDateTime afterTs = from;
+            long afterId = Long.MIN_VALUE;
+            LocalDateTime lastEviction = from;
+            List<ReplayRowView> page;
+            do {
+                long fetchStart = System.nanoTime();
+                page = transactionRepository.findReplayPage(afterTs, afterId, to, Limit.of(pageSize));
+                fetchNanos += System.nanoTime() - fetchStart;
+                if (page.isEmpty()) {
+                    break;
+                }
+                long evaluateStart = System.nanoTime();
+                process(page);
+                evaluateNanos += System.nanoTime() - evaluateStart;
+
+                ReplayRowView last = page.get(page.size() - 1);
+                afterTs = last.getTimestamp();
+                afterId = last.getId();
+                transactions += page.size();
+                pages++;
+                if (afterTs.isAfter(lastEviction.plus(EVICT_EVERY))) {
+                    velocity.evictBefore(afterTs.minus(VelocityEngine.RETENTION));
+                    shared.evictBefore(afterTs);
+                    lastEviction = afterTs;
+                }
+            } while (page.size() == pageSize);
+
+            long elapsedNanos = System.nanoTime() - start;
+            BacktestReport report = report(from, to, archivedBefore, transactions, pages, elapsedNanos, fetchNanos, evaluateNanos);
+            log.info("Backtest ({}) de {} transação(ões) em {} ms: alertas {} gravados x {} reprocessados, "
+                            + "{} novo(s), {} removido(s), {} com código diferente",
+                    mode, transactions, report.elapsedMillis(), report.storedFlagged(), report.replayFlagged(),
+                    report.diff().newlyFlagged(), report.diff().cleared(), report.diff().reasonChanged());
+            return report;
+        }
+
+        private void process(List<ReplayRowView> page) {
+            // Em sequência, na ordem global: estado compartilhado entre contas
+            Map<String, List<Replayed>> bySender = new LinkedHashMap<>();
+            for (ReplayRowView row : page) {
+                Transaction t = toTransaction(row);
+                String sender = t.getSenderAccountId();
+                String receiver = t.getReceiverAccountId();
+                boolean receiverKnown = receiver == null || receivers.mightContain(receiver);
+                int deviceAccounts = shared.accountsOnDevice(t.getDeviceId(), sender, t.getTimestamp());
+                int ipAccounts = shared.accountsOnIp(t.getIpAddress(), sender, t.getTimestamp());
+                shared.record(t);
+                if (receiver != null) {
+                    receivers.put(receiver);
+                }
+                bySender.computeIfAbsent(sender, k -> new ArrayList<>())
+                        .add(new Replayed(row, t, receiverKnown, deviceAccounts, ipAccounts));
+            }
+            // Em paralelo, por remetente: janela de velocidade, última transação e regras
+            pool.invoke(new SenderGroups(new ArrayList<>(bySender.values()), 0, bySender.size()));
+        }
+
+        // Avalia as transações de um remetente em ordem, atualizando o estado da conta depois de cada uma
+        void evaluate(List<Replayed> group) {
+            for (Replayed r : group) {
+                Transaction t = r.transaction();
+                String sender = t.getSenderAccountId();
+                LocalDateTime ts = t.getTimestamp();
+                RiskThresholds limits = thresholds.resolve(t.getChannel(), t.getCustomerSegment());
+                int recentCount = velocity.countSince(sender, ts.minus(limits.panicWindow()));
+                int distinctReceivers = velocity.distinctReceiversSince(sender, ts.minus(limits.receiversWindow()),
+                        t.getReceiverAccountId());
+                LastSeen last = sender != null ? lastSeen.getIfPresent(sender) : null;
+                RiskContext ctx = RiskContext.of(recentCount, distinctReceivers, last, r.receiverKnown())
+                        .withSharedAccounts(r.deviceAccounts(), r.ipAccounts())
+                        .withThresholds(limits);
+
+                RiskReason first = null;
+                int score = 0;
+                List<RiskContribution> contributions = new ArrayList<>(2);
+                for (int i = 0; i < rules.size(); i++) {
+                    RiskRule rule = rules.get(i);
+                    RiskReason reason = rule.evaluate(t, ctx);
+                    if (reason == null) {
+                        continue;
+                    }
+                    ruleHits[i].increment();
+                    if (first == null) {
+                        first = reason;
+                    }
+                    int weight = scoringPolicy.weight(reason);
+                    score += weight;
+                    contributions.add(new RiskContribution(rule.name(), reason, weight, rule.detail(t, ctx)));
+                }
+
+                boolean suspicious;
+                RiskReason reason;
+                if (mode == RiskAnalysisService.Mode.SCORING) {
+                    ScoreCard card = new ScoreCard(score, scoringPolicy.statusFor(score), contributions, true);
+                    suspicious = card.status() != RiskStatus.APPROVED;
+                    reason = card.reason();
+                } else {
+                    suspicious = first != null;
+                    reason = first != null ? first : RiskReason.APPROVED;
+                }
+                compare(r.row(), suspicious, reason);
+
+                velocity.record(t);
+                if (sender != null) {
+                    lastSeen.put(sender, LastSeen.of(t));
+                }
+            }
+        }
+
+        private void compare(ReplayRowView row, boolean suspicious, RiskReason reason) {
+            boolean storedSuspicious = Boolean.TRUE.equals(row.getIsSuspicious());
+            RiskReason storedReason = RiskReason.fromMessage(row.getRiskReason());
+            reasons[reason.ordinal()].increment();
+            if (storedSuspicious) {
+                storedFlagged.increment();
+            }
+            if (suspicious) {
+                replayFlagged.increment();
+            }
+            if (storedSuspicious != suspicious) {
+                (suspicious ? newlyFlagged : cleared).increment();
+            } else if (suspicious && storedReason != reason) {
+                reasonChanged.increment();
+            } else {
+                unchanged.increment();
+                return;
+            }
+            String transition = (storedReason != null ? storedReason.name() : "UNKNOWN") + "->" + reason.name();
+            transitions.computeIfAbsent(transition, k -> new LongAdder()).increment();
+            if (sampled.getAndIncrement() < SAMPLE_SIZE) {
+                samples.add(row.getId());
+            }
+        }
+
+        private BacktestReport report(LocalDateTime from, LocalDateTime to, LocalDateTime archivedBefore,
+                                      long transactions, long pages,
+                                      long elapsedNanos, long fetchNanos, long evaluateNanos) {
+            List<BacktestReport.RuleRate> rates = new ArrayList<>();
+            for (int i = 0; i < rules.size(); i++) {
+                long hits = ruleHits[i].sum();
+                rates.add(new BacktestReport.RuleRate(rules.get(i).name(), rules.get(i).priority(), hits, rate(hits, transactions)));
+            }
+            Map<RiskReason, Long> byReason = new EnumMap<>(RiskReason.class);
+            for (RiskReason reason : RiskReason.values()) {
+                long count = reasons[reason.ordinal()].sum();
+                if (count > 0) {
+                    byReason.put(reason, count);
+                }
+            }
+            Map<String, Long> diffs = new TreeMap<>();
+            transitions.forEach((k, v) -> diffs.put(k, v.sum()));
+            BacktestReport.Diff diff = new BacktestReport.Diff(unchanged.sum(), newlyFlagged.sum(), cleared.sum(),
+                    reasonChanged.sum(), diffs, samples.stream().sorted().toList());
+            double perSecond = elapsedNanos > 0 ? transactions * 1_000_000_000.0 / elapsedNanos : 0;
+            return new BacktestReport(mode.name(), thresholds.version(), from, to, archivedBefore, transactions, pages,
+                    elapsedNanos / 1_000_000, fetchNanos / 1_000_000, evaluateNanos / 1_000_000, perSecond,
+                    storedFlagged.sum(), replayFlagged.sum(), rate(storedFlagged.sum(), transactions),
+                    rate(replayFlagged.sum(), transactions), rates, byReason, diff);
+        }
+
+        /*
+          Divide os grupos de remetentes ao meio até GROUPS_PER_TASK grupos por
+          tarefa; cada grupo é avaliado inteiro por uma única tarefa.
+        */
+        private final class SenderGroups extends RecursiveAction {
+            private final List<List<Replayed>> groups;
+            private final int from;
+            private final int to;
+
+            SenderGroups(List<List<Replayed>> groups, int from, int to) {
+                this.groups = groups;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= GROUPS_PER_TASK) {
+                    for (int i = from; i < to; i++) {
+                        evaluate(groups.get(i));
+                    }
+                    return;
+                }
+                int mid = (from + to) >>> 1;
+                invokeAll(new SenderGroups(groups, from, mid), new SenderGroups(groups, mid, to));
+            }
+        }
+    }
+
+    private static Transaction toTransaction(ReplayRowView row) {
+        Transaction t = new Transaction(row.getAmount(), row.getSenderAccountId(), row.getReceiverAccountId(),
+                row.getTimestamp());
+        t.setId(row.getId());
+        t.setChannel(row.getChannel());
+        t.setDeviceId(row.getDeviceId());
+        t.setIpAddress(row.getIpAddress());
+        t.setGeoLocation(row.getGeoLocation());
+        t.setAuthAttempts(row.getAuthAttempts());
+        return t;
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static double rate(long count, long total) {
+        return total > 0 ? (double) count / total : 0;
+    }
+}
@@ -0,0 +1,234 @@
+package com.projeto.antifraud.service.persistence;
+
+import com.projeto.antifraud.entity.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Journal local append-only, em arquivo mapeado em memória, das transações
+  decididas e ainda não gravadas no banco (modo write-behind).
+  - Cabeçalho: magic, versão e offset confirmado (tudo antes dele já está no banco).
+  - Registro: tamanho (int) + transação serializada; tamanho 0 marca o fim.
+  - Escritas vão para o page cache do SO: sobrevivem a uma queda do processo;
+    force() opcional a cada checkpoint para sobreviver a queda da máquina.
+  - Quando tudo o que foi escrito está confirmado, o journal volta ao início.
+  - O checkpoint vem depois do commit no banco e não faz parte dele: o que
+    foi gravado e não confirmado volta em pending() (pelo menos uma vez).
+  - Versão 2 acrescenta currency ao registro; um journal da versão 1 ainda
+    é lido (sem moeda) e passa à versão atual quando esvazia.
+*/
+public class TransactionJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x4A524E4C; // "JRNL"
+    static final int VERSION = 2;
+    static final int VERSION_NO_CURRENCY = 1;
+    static final int HEADER = 16;        // magic(4) + versão(4) + offset confirmado(8)
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean forceOnCheckpoint;
+    private int writePos;
+    private int committed;
+    private int recordVersion = VERSION;
+
+    public TransactionJournal(Path path, int capacityBytes, boolean forceOnCheckpoint) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o journal " + path, e);
+        }
+        this.forceOnCheckpoint = forceOnCheckpoint;
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != MAGIC || (version != VERSION && version != VERSION_NO_CURRENCY)) {
+            buffer.putInt(0, MAGIC);
+            reset();
+        } else {
+            long header = buffer.getLong(8);
+            if (header < HEADER || header + 4 > capacityBytes) {
+                // Offset confirmado fora do arquivo: não há como saber onde começam as pendências
+                reset();
+            } else {
+                committed = (int) header;
+                writePos = committed;
+                recordVersion = version;
+            }
+        }
+    }
+
+    // Registros escritos e não confirmados (a regravar no banco após uma queda)
+    public synchronized List<Transaction> pending() {
+        List<Transaction> result = new ArrayList<>();
+        int pos = committed;
+        while (pos + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + 4 + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(pos + 4, payload);
+            result.add(decode(payload, recordVersion));
+            pos += 4 + length;
+        }
+        writePos = pos;
+        if (result.isEmpty() && recordVersion != VERSION) {
+            // Nada a regravar: novos registros já saem no formato atual
+            reset();
+        }
+        return result;
+    }
+
+    // Acrescenta um registro; retorna o offset final ou -1 se não houver espaço
+    public synchronized int append(Transaction transaction) {
+        byte[] payload = encode(transaction);
+        int end = writePos + 4 + payload.length;
+        if (end + 4 > buffer.capacity()) {
+            return -1;
+        }
+        buffer.putInt(end, 0);
+        buffer.put(writePos + 4, payload);
+        buffer.putInt(writePos, payload.length);
+        writePos = end;
+        return end;
+    }
+
+    // Tudo até "offset" já está no banco; volta ao início quando não há pendências
+    public synchronized void checkpoint(int offset) {
+        committed = Math.max(committed, Math.min(offset, writePos));
+        if (committed == writePos) {
+            reset();
+        } else {
+            buffer.putLong(8, committed);
+        }
+        if (forceOnCheckpoint) {
+            buffer.force();
+        }
+    }
+
+    // Tudo o que foi escrito já está no banco (ex.: após regravar pending())
+    public synchronized void checkpointAll() {
+        checkpoint(writePos);
+    }
+
+    public synchronized int usedBytes() {
+        return writePos - HEADER;
+    }
+
+    public int capacityBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void reset() {
+        buffer.putInt(4, VERSION);
+        recordVersion = VERSION;
+        committed = HEADER;
+        writePos = HEADER;
+        buffer.putInt(HEADER, 0);
+        buffer.putLong(8, HEADER);
+    }
+
+    static byte[] encode(Transaction t) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, t.getAmount() != null ? t.getAmount().toPlainString() : null);
+            writeString(out, t.getCurrency());
+            writeString(out, t.getSenderAccountId());
+            writeString(out, t.getReceiverAccountId());
+            writeString(out, t.getCustomerId());
+            writeString(out, t.getChannel());
+            writeString(out, t.getDeviceId());
+            writeString(out, t.getIpAddress());
+            writeString(out, t.getGeoLocation());
+            out.writeInt(t.getAuthAttempts() != null ? t.getAuthAttempts() : -1);
+            writeTime(out, t.getTimestamp());
+            out.writeBoolean(t.isSuspicious());
+            writeString(out, t.getRiskReason());
+            writeString(out, t.getStatus());
+            writeTime(out, t.getCreatedAt());
+            writeTime(out, t.getUpdatedAt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Transaction decode(byte[] payload, int version) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            Transaction t = new Transaction();
+            String amount = readString(in);
+            t.setAmount(amount != null ? new BigDecimal(amount) : null);
+            if (version >= VERSION) {
+                t.setCurrency(readString(in));
+            }
+            t.setSenderAccountId(readString(in));
+            t.setReceiverAccountId(readString(in));
+            t.setCustomerId(readString(in));
+            t.setChannel(readString(in));
+            t.setDeviceId(readString(in));
+            t.setIpAddress(readString(in));
+            t.setGeoLocation(readString(in));
+            int authAttempts = in.readInt();
+            t.setAuthAttempts(authAttempts >= 0 ? authAttempts : null);
+            t.setTimestamp(readTime(in));
+            t.setSuspicious(in.readBoolean());
+            t.setRiskReason(readString(in));
+            t.setStatus(readString(in));
+            t.setCreatedAt(readTime(in));
+            t.setUpdatedAt(readTime(in));
+            return t;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
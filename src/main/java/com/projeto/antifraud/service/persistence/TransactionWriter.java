@@ -0,0 +1,245 @@
+package com.projeto.antifraud.service.persistence;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.LastSeen;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+  Gravação das transações analisadas.
+  - Modo padrão: save/saveAll síncronos no repositório.
+  - Modo write-behind (antifraud.persistence.write-behind.enabled=true):
+    a transação é acrescentada ao TransactionJournal e a uma fila limitada;
+    a resposta não espera o commit. Uma thread de fundo drena a fila em
+    blocos (saveAll com lote JDBC) e confirma o journal.
+  - Contrapressão: com a fila ou o journal cheios, o chamador espera até
+    offer-timeout-ms e, esgotado o prazo, grava de forma síncrona.
+  - Falhas do banco não descartam blocos: a thread de fundo tenta de novo.
+  - Na inicialização, registros do journal não confirmados (queda anterior)
+    são regravados antes de aceitar requisições.
+  - Recuperação "pelo menos uma vez": uma queda entre o saveAll de um bloco
+    e o checkpoint regrava o bloco inteiro com novos ids (no máximo
+    batch-size linhas duplicadas; na regravação da inicialização, todas as
+    pendências). As duplicatas contam na velocidade, nos resumos arquivados
+    e no backtest até serem removidas.
+  - pendingLastSeen expõe a última transação na fila de cada remetente,
+    para as regras de canal/dispositivo/geo enxergarem o que ainda não está no banco.
+  - Em write-behind o id é atribuído apenas quando o bloco é gravado.
+*/
+@Component
+public class TransactionWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionWriter.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${antifraud.persistence.write-behind.enabled:false}")
+    private boolean writeBehind;
+
+    @Value("${antifraud.persistence.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${antifraud.persistence.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${antifraud.persistence.write-behind.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    @Value("${antifraud.persistence.write-behind.journal-path:data/transactions.journal}")
+    private String journalPath;
+
+    @Value("${antifraud.persistence.write-behind.journal-size-mb:64}")
+    private int journalSizeMb;
+
+    @Value("${antifraud.persistence.write-behind.journal-fsync:false}")
+    private boolean journalFsync;
+
+    private BlockingQueue<Entry> queue;
+    private TransactionJournal journal;
+    private Thread flusher;
+    private volatile boolean running;
+    private volatile boolean abandoned;
+    // ReentrantLock em vez de synchronized/wait: a espera não prende a thread portadora de uma virtual thread
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition spaceAvailable = appendLock.newCondition();
+    private final ConcurrentHashMap<String, LastSeen> pendingLastSeen = new ConcurrentHashMap<>();
+
+    private record Entry(Transaction transaction, int journalOffset, LastSeen lastSeen) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!writeBehind) {
+            return;
+        }
+        journal = new TransactionJournal(Path.of(journalPath), journalSizeMb * 1024 * 1024, journalFsync);
+        List<Transaction> recovered = journal.pending();
+        if (!recovered.isEmpty()) {
+            log.warn("Regravando {} transação(ões) pendentes do journal", recovered.size());
+            transactionRepository.saveAll(recovered);
+            journal.checkpointAll();
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "transaction-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public Transaction write(Transaction transaction) {
+        if (!writeBehind || !enqueue(transaction)) {
+            return transactionRepository.save(transaction);
+        }
+        return transaction;
+    }
+
+    public List<Transaction> writeAll(List<Transaction> transactions) {
+        if (!writeBehind) {
+            return transactionRepository.saveAll(transactions);
+        }
+        List<Transaction> overflow = new ArrayList<>();
+        for (Transaction t : transactions) {
+            if (!enqueue(t)) {
+                overflow.add(t);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            transactionRepository.saveAll(overflow);
+        }
+        return transactions;
+    }
+
+    public LastSeen pendingLastSeen(String senderAccountId) {
+        return senderAccountId != null ? pendingLastSeen.get(senderAccountId) : null;
+    }
+
+    public int queueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public boolean writeBehindEnabled() {
+        return writeBehind;
+    }
+
+    // Journal e fila na mesma ordem: o offset confirmado avança em ordem de chegada
+    private boolean enqueue(Transaction transaction) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        appendLock.lock();
+        try {
+            // Só produtores adicionam à fila, e sempre sob appendLock: o espaço verificado
+            // aqui continua disponível até o offer logo abaixo
+            int offset = -1;
+            while (queue.remainingCapacity() == 0 || (offset = journal.append(transaction)) < 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = spaceAvailable.awaitNanos(remaining);
+            }
+            LastSeen lastSeen = LastSeen.of(transaction);
+            queue.add(new Entry(transaction, offset, lastSeen));
+            if (transaction.getSenderAccountId() != null) {
+                pendingLastSeen.merge(transaction.getSenderAccountId(), lastSeen, LastSeen::newest);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (!abandoned && (running || !queue.isEmpty() || !batch.isEmpty())) {
+            try {
+                if (batch.isEmpty()) {
+                    Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    signalSpace();
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Mantém o bloco e tenta de novo: o journal garante que nada se perde
+                log.error("Falha ao gravar bloco de {} transação(ões); nova tentativa em 1s", batch.size(), e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        List<Transaction> rows = new ArrayList<>(batch.size());
+        for (Entry e : batch) {
+            rows.add(e.transaction());
+        }
+        transactionRepository.saveAll(rows);
+        appendLock.lock();
+        try {
+            journal.checkpoint(batch.get(batch.size() - 1).journalOffset());
+            spaceAvailable.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+        for (Entry e : batch) {
+            String sender = e.transaction().getSenderAccountId();
+            if (sender != null) {
+                pendingLastSeen.remove(sender, e.lastSeen());
+            }
+        }
+    }
+
+    private void signalSpace() {
+        appendLock.lock();
+        try {
+            spaceAvailable.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!writeBehind) {
+            return;
+        }
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        // Banco indisponível: o que restou fica no journal e é regravado na próxima inicialização
+        abandoned = true;
+        flusher.join(TimeUnit.SECONDS.toMillis(2));
+        journal.close();
+    }
+}
@@ -0,0 +1,163 @@
+package com.projeto.antifraud.service.retention;
+
+import com.projeto.antifraud.entity.AccountRollup;
+import com.projeto.antifraud.entity.ReceiverRollup;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.ReceiverRollupRepository;
+import com.projeto.antifraud.repository.ReplayRowView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+  Retenção da tabela transactions: compactação periódica do histórico antigo.
+  - Desligada por padrão (antifraud.retention.enabled): remove linhas da
+    tabela quente, que é a única lida pelo backtest.
+  - Transações com timestamp anterior a hot-days são movidas, em blocos, para
+    transactions_archive (criada no início com CREATE TABLE ... AS SELECT
+    ... WITH NO DATA) e somadas aos resumos por conta (AccountRollup) e por
+    recebedor (ReceiverRollup).
+  - Colunas do arquivo nomeadas em ARCHIVE_COLUMNS, no create e no insert:
+    a cópia não depende da ordem física das colunas da tabela quente. Coluna
+    nova em Transaction só vai para o arquivo se entrar na lista (e no
+    ALTER TABLE do arquivo já existente).
+  - Cada bloco é uma transação do banco: resumo, cópia para o arquivo e
+    remoção da tabela quente acontecem juntos; toda transação está ou na
+    tabela quente ou no arquivo + resumos, nunca nos dois.
+  - Blocos lidos pelo índice de timestamp, sempre do início: as linhas
+    movidas saem da tabela, então não é preciso guardar posição.
+  - Com a tabela quente limitada à retenção, as consultas do caminho quente
+    (última transação, recebedor conhecido) custam o mesmo qualquer que seja
+    o tamanho do histórico; o que saiu dela é respondido pelos resumos, por
+    chave primária.
+  - O H2 não tem particionamento declarativo; a tabela de arquivo faz o papel
+    da partição fria.
+*/
+@Component
+public class RetentionCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionCompactor.class);
+
+    static final String ARCHIVE_TABLE = "transactions_archive";
+
+    static final String ARCHIVE_COLUMNS = "id, amount, currency, sender_account_id, receiver_account_id, customer_id, "
+            + "channel, device_id, ip_address, geo_location, auth_attempts, timestamp, is_suspicious, risk_reason, "
+            + "status, created_at, updated_at";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRollupRepository accountRollupRepository;
+
+    @Autowired
+    private ReceiverRollupRepository receiverRollupRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${antifraud.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${antifraud.retention.hot-days:30}")
+    private long hotDays;
+
+    @Value("${antifraud.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PostConstruct
+    public void createArchiveTable() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().execute("create table if not exists " + ARCHIVE_TABLE
+                + " as select " + ARCHIVE_COLUMNS + " from transactions with no data");
+    }
+
+    @Scheduled(cron = "${antifraud.retention.cron:0 30 3 * * *}")
+    public void compact() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compact(LocalDateTime.now().minusDays(hotDays));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Move para o arquivo, em blocos, as transações anteriores a "cutoff"; retorna quantas foram movidas
+    public long compact(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        long moved = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> compactChunk(cutoff));
+            moved += chunk;
+        } while (chunk == chunkSize);
+        if (moved > 0) {
+            log.info("Retenção: {} transação(ões) anteriores a {} arquivadas em {} ms",
+                    moved, cutoff, (System.nanoTime() - start) / 1_000_000);
+        }
+        return moved;
+    }
+
+    // Um bloco, dentro da transação do chamador: resumos, cópia para o arquivo e remoção
+    int compactChunk(LocalDateTime cutoff) {
+        List<ReplayRowView> rows = transactionRepository.findRollupRowsByTimestampBeforeOrderByTimestampAscIdAsc(
+                cutoff, Limit.of(chunkSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        rollUp(rows);
+        Map<String, Object> ids = Map.of("ids", rows.stream().map(ReplayRowView::getId).toList());
+        jdbcTemplate.update("insert into " + ARCHIVE_TABLE + " (" + ARCHIVE_COLUMNS + ") select " + ARCHIVE_COLUMNS
+                + " from transactions where id in (:ids)", ids);
+        jdbcTemplate.update("delete from transactions where id in (:ids)", ids);
+        return rows.size();
+    }
+
+    // Soma o bloco aos resumos existentes: uma leitura e uma gravação em lote por tabela
+    private void rollUp(List<ReplayRowView> rows) {
+        Map<String, AccountRollup> accounts = new HashMap<>();
+        Map<String, ReceiverRollup> receivers = new HashMap<>();
+        accountRollupRepository.findAllById(rows.stream().map(ReplayRowView::getSenderAccountId)
+                .filter(s -> s != null).distinct().toList())
+                .forEach(a -> accounts.put(a.getSenderAccountId(), a));
+        receiverRollupRepository.findAllById(rows.stream().map(ReplayRowView::getReceiverAccountId)
+                .filter(r -> r != null).distinct().toList())
+                .forEach(r -> receivers.put(r.getReceiverAccountId(), r));
+
+        for (ReplayRowView row : rows) {
+            if (row.getSenderAccountId() != null) {
+                accounts.computeIfAbsent(row.getSenderAccountId(), AccountRollup::new)
+                        .record(row.getTimestamp(), row.getAmount(), Boolean.TRUE.equals(row.getIsSuspicious()),
+                                row.getChannel(), row.getDeviceId(), row.getGeoLocation());
+            }
+            if (row.getReceiverAccountId() != null) {
+                receivers.computeIfAbsent(row.getReceiverAccountId(), ReceiverRollup::new).record(row.getTimestamp());
+            }
+        }
+        accountRollupRepository.saveAll(accounts.values());
+        receiverRollupRepository.saveAll(receivers.values());
+    }
+}
@@ -0,0 +1,34 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Regra: muitas tentativas de autenticação -> risco crítico imediato
+@Component
+public class AuthAttemptsRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.AUTH_ATTEMPTS);
+
+    @Override
+    public String name() { return "auth-attempts"; }
+
+    @Override
+    public int priority() { return 10; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        Integer authAttempts = transaction.getAuthAttempts();
+        if (authAttempts != null && authAttempts >= ctx.thresholds().maxAuthAttempts()) {
+            return RiskReason.AUTH_ATTEMPTS;
+        }
+        return null;
+    }
+}
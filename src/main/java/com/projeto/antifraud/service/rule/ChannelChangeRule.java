@@ -0,0 +1,55 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.LastSeen;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Mudança de canal inusitada em relação à última transação do remetente
+@Component
+public class ChannelChangeRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.CHANNEL_CHANGE);
+
+    @Override
+    public String name() { return "channel-change"; }
+
+    @Override
+    public int priority() { return 30; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public boolean stateful() { return true; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        String currentChannel = transaction.getChannel();
+        if (!readsLastSeen(transaction)) {
+            return null;
+        }
+        LastSeen last = ctx.lastSeen();
+        String lastChannel = last != null ? last.channel() : null;
+        if (lastChannel != null && !lastChannel.equalsIgnoreCase(currentChannel)) {
+            return RiskReason.CHANNEL_CHANGE;
+        }
+        return null;
+    }
+
+    // Sem canal na transação a última não é lida (nem carregada no prefetch)
+    public static boolean readsLastSeen(Transaction transaction) {
+        return transaction.getChannel() != null;
+    }
+
+    // Canal anterior e atual, para a contribuição / log de auditoria
+    @Override
+    public String detail(Transaction transaction, RiskContext ctx) {
+        LastSeen last = ctx.lastSeen();
+        return "antes " + (last != null ? last.channel() : null) + ", agora " + transaction.getChannel();
+    }
+}
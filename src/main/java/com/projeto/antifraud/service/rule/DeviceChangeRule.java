@@ -0,0 +1,48 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.LastSeen;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Mudança de dispositivo em relação à última transação do remetente
+@Component
+public class DeviceChangeRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.DEVICE_CHANGE);
+
+    @Override
+    public String name() { return "device-change"; }
+
+    @Override
+    public int priority() { return 40; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public boolean stateful() { return true; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        String curDevice = transaction.getDeviceId();
+        if (!readsLastSeen(transaction)) {
+            return null;
+        }
+        LastSeen last = ctx.lastSeen();
+        String lastDevice = last != null ? last.deviceId() : null;
+        if (lastDevice != null && !lastDevice.equals(curDevice)) {
+            return RiskReason.DEVICE_CHANGE;
+        }
+        return null;
+    }
+
+    // Sem dispositivo na transação a última não é lida (nem carregada no prefetch)
+    public static boolean readsLastSeen(Transaction transaction) {
+        return transaction.getDeviceId() != null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.LastSeen;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Mismatch de geolocalização em pouco tempo (com valor significativo)
+@Component
+public class GeoChangeRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.GEO_CHANGE);
+
+    @Override
+    public String name() { return "geo-change"; }
+
+    @Override
+    public int priority() { return 50; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public boolean stateful() { return true; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        String curGeo = transaction.getGeoLocation();
+        if (!readsLastSeen(transaction, ctx.thresholds())) {
+            return null;
+        }
+        LastSeen last = ctx.lastSeen();
+        String lastGeo = last != null ? last.geoLocation() : null;
+        if (lastGeo != null && !lastGeo.equalsIgnoreCase(curGeo)) {
+            return RiskReason.GEO_CHANGE;
+        }
+        return null;
+    }
+
+    // Montante primeiro: a última transação só é carregada (prefetch) quando a regra pode disparar
+    public static boolean readsLastSeen(Transaction transaction, RiskThresholds thresholds) {
+        return transaction.getGeoLocation() != null
+                && transaction.getAmount().compareTo(thresholds.geoChangeMinAmount()) > 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Montante acima do limite; em horário noturno é alerta crítico
+@Component
+public class HighAmountRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.HIGH_AMOUNT, RiskReason.HIGH_AMOUNT_NIGHT);
+
+    @Override
+    public String name() { return "high-amount"; }
+
+    @Override
+    public int priority() { return 70; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        RiskThresholds thresholds = ctx.thresholds();
+        if (transaction.getAmount().compareTo(thresholds.highAmountLimit()) <= 0) {
+            return null;
+        }
+        boolean isNightTime = thresholds.isNight(transaction.getTimestamp().getHour());
+        return isNightTime ? RiskReason.HIGH_AMOUNT_NIGHT : RiskReason.HIGH_AMOUNT;
+    }
+}
@@ -0,0 +1,33 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Padrão comportamental: múltiplos receptores distintos na janela de recebedores (padrão 1 hora)
+@Component
+public class MultipleReceiversRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.MULTIPLE_RECEIVERS);
+
+    @Override
+    public String name() { return "multiple-receivers"; }
+
+    @Override
+    public int priority() { return 60; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        if (ctx.distinctReceivers() >= ctx.thresholds().maxDistinctReceivers()) {
+            return RiskReason.MULTIPLE_RECEIVERS;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Receptor novo com montante elevado
+@Component
+public class NewReceiverRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.NEW_RECEIVER);
+
+    @Override
+    public String name() { return "new-receiver"; }
+
+    @Override
+    public int priority() { return 80; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public boolean stateful() { return true; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        if (!readsReceiverKnown(transaction, ctx.thresholds())) {
+            return null;
+        }
+        return ctx.receiverKnown() ? null : RiskReason.NEW_RECEIVER;
+    }
+
+    // Montante primeiro: o índice de recebedores só é consultado (prefetch) quando necessário
+    public static boolean readsReceiverKnown(Transaction transaction, RiskThresholds thresholds) {
+        return transaction.getReceiverAccountId() != null
+                && transaction.getAmount().compareTo(thresholds.newReceiverMinAmount()) > 0;
+    }
+}
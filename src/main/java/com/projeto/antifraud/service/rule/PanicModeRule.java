@@ -0,0 +1,33 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Regra: velocidade (panic mode) - transações na janela de pânico (padrão 5 minutos)
+@Component
+public class PanicModeRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.PANIC_MODE);
+
+    @Override
+    public String name() { return "panic-mode"; }
+
+    @Override
+    public int priority() { return 20; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        if (ctx.recentCount() >= ctx.thresholds().panicMaxTransactions()) {
+            return RiskReason.PANIC_MODE;
+        }
+        return null;
+    }
+}
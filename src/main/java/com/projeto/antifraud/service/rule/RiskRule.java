@@ -0,0 +1,40 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+
+import java.util.Set;
+
+/*
+  SPI de regra de risco.
+  - evaluate: função pura sobre a transação e o snapshot; retorna o código
+    da razão (RiskReason) quando a regra corresponde, ou null.
+  - priority: ordem de precedência original (menor vence). Define qual razão
+    é reportada quando mais de uma regra corresponde, independentemente da
+    ordem em que o motor as executa.
+  - reasons: códigos que a regra pode retornar; no modo de pontuação dão o
+    peso máximo que a regra ainda pode somar (parada antecipada).
+  - stateful: a regra lê atributos carregados do banco (sob demanda); usado
+    como estimativa inicial de custo antes de haver medições.
+  - detail: texto de auditoria (ex.: canal anterior e atual), chamado só
+    depois que a regra corresponde; a mensagem gravada continua a constante.
+*/
+public interface RiskRule {
+
+    String name();
+
+    int priority();
+
+    Set<RiskReason> reasons();
+
+    default boolean stateful() {
+        return false;
+    }
+
+    RiskReason evaluate(Transaction transaction, RiskContext ctx);
+
+    default String detail(Transaction transaction, RiskContext ctx) {
+        return null;
+    }
+}
@@ -0,0 +1,114 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.service.SharedEntityIndex;
+import com.projeto.antifraud.service.VelocityEngine;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/*
+  Limites das regras de risco, imutáveis.
+  - DEFAULTS: os valores históricos (antes fixos no código das regras).
+  - Janelas de velocidade em minutos, no máximo a retenção do motor em
+    memória (VelocityEngine.RETENTION); horas noturnas de 0 a 23 (a faixa pode cruzar a meia-noite).
+  - Contas por IP/dispositivo no máximo SharedEntityIndex.MAX_ACCOUNTS: a
+    contagem satura aí, e um limite maior nunca dispararia.
+  - ThresholdOverride: os mesmos campos, todos opcionais, aplicados sobre uma base
+    (padrões do arquivo, canal, segmento); channel/segment dizem a quem vale.
+*/
+public record RiskThresholds(
+        BigDecimal highAmountLimit,
+        int nightStartHour,
+        int nightEndHour,
+        BigDecimal newReceiverMinAmount,
+        BigDecimal geoChangeMinAmount,
+        int panicWindowMinutes,
+        int panicMaxTransactions,
+        int receiversWindowMinutes,
+        int maxDistinctReceivers,
+        int maxAuthAttempts,
+        int maxDeviceAccounts,
+        int maxIpAccounts) {
+
+    static final long MAX_WINDOW_MINUTES = VelocityEngine.RETENTION.toMinutes();
+    static final int MAX_SHARED_ACCOUNTS = SharedEntityIndex.MAX_ACCOUNTS;
+
+    public static final RiskThresholds DEFAULTS = new RiskThresholds(
+            new BigDecimal("2000.00"), 22, 6,
+            new BigDecimal("1000.00"), new BigDecimal("200.00"),
+            5, 3, 60, 3, 3, 3, 10);
+
+    public RiskThresholds {
+        require(highAmountLimit != null && highAmountLimit.signum() >= 0, "highAmountLimit", highAmountLimit);
+        require(newReceiverMinAmount != null && newReceiverMinAmount.signum() >= 0, "newReceiverMinAmount", newReceiverMinAmount);
+        require(geoChangeMinAmount != null && geoChangeMinAmount.signum() >= 0, "geoChangeMinAmount", geoChangeMinAmount);
+        require(nightStartHour >= 0 && nightStartHour <= 23, "nightStartHour", nightStartHour);
+        require(nightEndHour >= 0 && nightEndHour <= 23, "nightEndHour", nightEndHour);
+        require(panicWindowMinutes > 0 && panicWindowMinutes <= MAX_WINDOW_MINUTES, "panicWindowMinutes", panicWindowMinutes);
+        require(receiversWindowMinutes > 0 && receiversWindowMinutes <= MAX_WINDOW_MINUTES, "receiversWindowMinutes", receiversWindowMinutes);
+        require(panicMaxTransactions > 0, "panicMaxTransactions", panicMaxTransactions);
+        require(maxDistinctReceivers > 0, "maxDistinctReceivers", maxDistinctReceivers);
+        require(maxAuthAttempts > 0, "maxAuthAttempts", maxAuthAttempts);
+        require(maxDeviceAccounts > 0 && maxDeviceAccounts <= MAX_SHARED_ACCOUNTS, "maxDeviceAccounts", maxDeviceAccounts);
+        require(maxIpAccounts > 0 && maxIpAccounts <= MAX_SHARED_ACCOUNTS, "maxIpAccounts", maxIpAccounts);
+    }
+
+    public Duration panicWindow() {
+        return Duration.ofMinutes(panicWindowMinutes);
+    }
+
+    public Duration receiversWindow() {
+        return Duration.ofMinutes(receiversWindowMinutes);
+    }
+
+    // Horário noturno: [nightStartHour, 23] e [0, nightEndHour] quando a faixa cruza a meia-noite
+    public boolean isNight(int hour) {
+        return nightStartHour > nightEndHour
+                ? hour >= nightStartHour || hour <= nightEndHour
+                : hour >= nightStartHour && hour <= nightEndHour;
+    }
+
+    private static void require(boolean valid, String field, Object value) {
+        if (!valid) {
+            throw new IllegalArgumentException("Limite inválido: " + field + "=" + value);
+        }
+    }
+
+    // Campos opcionais sobre uma base; channel/segment nulos valem para qualquer canal/segmento
+    public record ThresholdOverride(
+            String channel,
+            String segment,
+            BigDecimal highAmountLimit,
+            Integer nightStartHour,
+            Integer nightEndHour,
+            BigDecimal newReceiverMinAmount,
+            BigDecimal geoChangeMinAmount,
+            Integer panicWindowMinutes,
+            Integer panicMaxTransactions,
+            Integer receiversWindowMinutes,
+            Integer maxDistinctReceivers,
+            Integer maxAuthAttempts,
+            Integer maxDeviceAccounts,
+            Integer maxIpAccounts) {
+
+        public RiskThresholds applyTo(RiskThresholds base) {
+            return new RiskThresholds(
+                    or(highAmountLimit, base.highAmountLimit()),
+                    or(nightStartHour, base.nightStartHour()),
+                    or(nightEndHour, base.nightEndHour()),
+                    or(newReceiverMinAmount, base.newReceiverMinAmount()),
+                    or(geoChangeMinAmount, base.geoChangeMinAmount()),
+                    or(panicWindowMinutes, base.panicWindowMinutes()),
+                    or(panicMaxTransactions, base.panicMaxTransactions()),
+                    or(receiversWindowMinutes, base.receiversWindowMinutes()),
+                    or(maxDistinctReceivers, base.maxDistinctReceivers()),
+                    or(maxAuthAttempts, base.maxAuthAttempts()),
+                    or(maxDeviceAccounts, base.maxDeviceAccounts()),
+                    or(maxIpAccounts, base.maxIpAccounts()));
+        }
+
+        private static <T> T or(T value, T fallback) {
+            return value != null ? value : fallback;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+  Limites das regras, lidos de um arquivo JSON e recarregados sem reinício.
+  - Formato de antifraud.thresholds.path:
+      { "defaults": { "highAmountLimit": 3000.00, ... },
+        "overrides": [ { "channel": "PIX", "maxDistinctReceivers": 5 },
+                       { "segment": "PJ", "highAmountLimit": 20000.00 },
+                       { "channel": "PIX", "segment": "PF", "panicMaxTransactions": 5 } ] }
+    Campos ausentes mantêm o valor padrão (RiskThresholds.DEFAULTS); arquivo
+    ausente = só os padrões.
+  - A cada reload-interval-ms a data de modificação e o tamanho do arquivo são
+    comparados com os da última leitura; mudou, recarrega. POST
+    /api/risk/thresholds/reload força a leitura.
+  - A configuração inteira é validada e pré-resolvida (ThresholdTable) antes
+    da troca, feita com uma única escrita atômica; arquivo inválido é
+    registrado em log e a versão anterior continua valendo.
+  - Leitura no caminho quente: current() é uma leitura volátil; cada análise
+    usa uma única versão do começo ao fim (resolvida no RiskContextLoader).
+*/
+@Component
+public class RiskThresholdsRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskThresholdsRegistry.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${antifraud.thresholds.path:config/risk-thresholds.json}")
+    private String path;
+
+    private final AtomicReference<ThresholdTable> current = new AtomicReference<>(ThresholdTable.DEFAULTS);
+
+    private volatile long lastModified = -1;
+    private volatile long lastLength = -1;
+    private volatile String lastError;
+
+    // Documento do arquivo: "defaults" parcial sobre RiskThresholds.DEFAULTS
+    record Document(RiskThresholds.ThresholdOverride defaults, List<RiskThresholds.ThresholdOverride> overrides) {
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${antifraud.thresholds.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        File file = new File(path);
+        long modified = file.exists() ? file.lastModified() : 0;
+        long length = file.exists() ? file.length() : 0;
+        if (modified != lastModified || length != lastLength) {
+            reload();
+        }
+    }
+
+    // Lê, valida e troca a versão atual; em caso de erro a anterior é mantida
+    public synchronized Info reload() {
+        File file = new File(path);
+        lastModified = file.exists() ? file.lastModified() : 0;
+        lastLength = file.exists() ? file.length() : 0;
+        ThresholdTable previous = current.get();
+        try {
+            ThresholdTable next = file.exists()
+                    ? parse(file, previous.version() + 1)
+                    : new ThresholdTable(previous.version() + 1, ThresholdTable.DEFAULTS.source(), RiskThresholds.DEFAULTS, List.of());
+            current.set(next);
+            lastError = null;
+            log.info("Limites das regras carregados de {} (versão {}, {} override(s))",
+                    next.source(), next.version(), next.overrides().size());
+        } catch (JacksonException | IllegalArgumentException e) {
+            lastError = e.getMessage();
+            log.warn("Limites das regras em {} inválidos, mantendo a versão {}: {}", path, previous.version(), e.getMessage());
+        }
+        return info();
+    }
+
+    private ThresholdTable parse(File file, long version) {
+        Document document = objectMapper.readerFor(Document.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(file);
+        if (document == null) {
+            throw new IllegalArgumentException("arquivo vazio");
+        }
+        RiskThresholds defaults = document.defaults() != null
+                ? document.defaults().applyTo(RiskThresholds.DEFAULTS)
+                : RiskThresholds.DEFAULTS;
+        return new ThresholdTable(version, file.getPath(), defaults,
+                document.overrides() != null ? document.overrides() : List.of());
+    }
+
+    public ThresholdTable current() {
+        return current.get();
+    }
+
+    public RiskThresholds resolve(Transaction transaction) {
+        return current().resolve(transaction.getChannel(), transaction.getCustomerSegment());
+    }
+
+    public Info info() {
+        ThresholdTable table = current.get();
+        return new Info(table.version(), table.loadedAt(), table.source(), table.defaults(), table.overrides(), lastError);
+    }
+
+    public record Info(long version, Instant loadedAt, String source, RiskThresholds defaults,
+                       List<RiskThresholds.ThresholdOverride> overrides, String lastError) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskContribution;
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+  Motor de regras com avaliação em ordem de custo e curto-circuito.
+  - As regras são executadas da mais barata/mais eficaz para a mais cara,
+    mas a razão reportada continua sendo a da regra de maior prioridade
+    que corresponder (mesma semântica do "primeira regra vence").
+  - Depois que uma regra corresponde, regras de prioridade inferior não
+    podem mais mudar a decisão e são puladas (inclusive as que iriam ao banco).
+  - A ordem de execução é recalculada periodicamente a partir do custo médio
+    medido e da taxa de acerto (custo / taxa de acerto, crescente), ou fixada
+    pela propriedade antifraud.rules.order (nomes separados por vírgula).
+  - Cada regra mantém RuleStats (histograma de latência e contador de acertos).
+  - Modo de pontuação (score): cada regra que corresponde soma o peso do seu
+    sinal (ScoringPolicy). Para assim que a faixa não pode mais mudar, nem
+    somando o peso máximo das regras restantes, ou quando o orçamento de
+    latência acaba (decisão incompleta: no mínimo REVIEW).
+*/
+@Component
+public class RuleEngine {
+
+    private static final double MIN_HIT_RATE = 0.001;
+
+    private final List<Slot> slots;
+    private final boolean fixedOrder;
+    private volatile Slot[] order;
+
+    public RuleEngine(List<RiskRule> rules, @Value("${antifraud.rules.order:}") String configuredOrder) {
+        this.slots = rules.stream().map(Slot::new).toList();
+        if (configuredOrder != null && !configuredOrder.isBlank()) {
+            this.fixedOrder = true;
+            this.order = fixed(configuredOrder);
+        } else {
+            this.fixedOrder = false;
+            // Estimativa inicial: regras sem estado primeiro, depois por prioridade
+            this.order = slots.stream()
+                    .sorted(Comparator.comparing((Slot s) -> s.rule.stateful()).thenComparingInt(s -> s.rule.priority()))
+                    .toArray(Slot[]::new);
+        }
+    }
+
+    // Retorna a regra vencedora ou null se nenhuma corresponder
+    public RuleMatch evaluate(Transaction transaction, RiskContext ctx) {
+        Slot best = null;
+        RiskReason bestReason = null;
+        for (Slot slot : order) {
+            if (best != null && slot.rule.priority() > best.rule.priority()) {
+                slot.stats.recordSkip();
+                continue;
+            }
+            long start = System.nanoTime();
+            RiskReason reason = slot.rule.evaluate(transaction, ctx);
+            slot.stats.recordEvaluation(System.nanoTime() - start, reason != null);
+            if (reason != null) {
+                best = slot;
+                bestReason = reason;
+            }
+        }
+        return best != null ? new RuleMatch(best.rule.name(), bestReason, best.rule.detail(transaction, ctx)) : null;
+    }
+
+    // Acumula os sinais de todas as regras até a faixa de decisão estar garantida
+    public ScoreCard score(Transaction transaction, RiskContext ctx, ScoringPolicy policy) {
+        Slot[] current = order;
+        int remaining = 0;
+        for (Slot slot : current) {
+            remaining += policy.maxWeight(slot.rule);
+        }
+        long deadline = System.nanoTime() + policy.budgetNanos();
+        int score = 0;
+        List<RiskContribution> contributions = List.of();
+        boolean complete = true;
+        for (int i = 0; i < current.length; i++) {
+            Slot slot = current[i];
+            if (policy.statusFor(score) == policy.statusFor(score + remaining)) {
+                skipFrom(current, i);
+                break;
+            }
+            long start = System.nanoTime();
+            if (start - deadline > 0) {
+                complete = false;
+                skipFrom(current, i);
+                break;
+            }
+            remaining -= policy.maxWeight(slot.rule);
+            RiskReason reason = slot.rule.evaluate(transaction, ctx);
+            slot.stats.recordEvaluation(System.nanoTime() - start, reason != null);
+            if (reason != null) {
+                int weight = policy.weight(reason);
+                score += weight;
+                if (contributions.isEmpty()) {
+                    contributions = new ArrayList<>(2);
+                }
+                contributions.add(new RiskContribution(slot.rule.name(), reason, weight, slot.rule.detail(transaction, ctx)));
+            }
+        }
+        RiskStatus status = policy.statusFor(score);
+        if (!complete && status == RiskStatus.APPROVED) {
+            status = RiskStatus.REVIEW;
+        }
+        return new ScoreCard(score, status, contributions, complete);
+    }
+
+    private static void skipFrom(Slot[] current, int from) {
+        for (int i = from; i < current.length; i++) {
+            current[i].stats.recordSkip();
+        }
+    }
+
+    // Reordena as regras com base nas medições (custo médio / taxa de acerto)
+    @Scheduled(fixedDelay = 30_000)
+    public void reorder() {
+        if (fixedOrder) {
+            return;
+        }
+        Slot[] measured = order.clone();
+        Arrays.sort(measured, Comparator.comparingDouble(RuleEngine::score));
+        order = measured;
+    }
+
+    public List<RuleSnapshot> stats() {
+        List<RuleSnapshot> result = new ArrayList<>();
+        Slot[] current = order;
+        for (int i = 0; i < current.length; i++) {
+            Slot s = current[i];
+            result.add(new RuleSnapshot(s.rule.name(), s.rule.priority(), i,
+                    s.stats.evaluations(), s.stats.hits(), s.stats.skipped(),
+                    s.stats.meanNanos() / 1_000.0, s.stats.percentileNanos(0.99) / 1_000.0));
+        }
+        return result;
+    }
+
+    public List<RiskRule> rules() {
+        return slots.stream().map(s -> s.rule).toList();
+    }
+
+    public RuleStats statsFor(String ruleName) {
+        return slots.stream().filter(s -> s.rule.name().equals(ruleName)).map(s -> s.stats).findFirst().orElse(null);
+    }
+
+    private static double score(Slot slot) {
+        if (slot.stats.evaluations() == 0) {
+            return slot.rule.stateful() ? Double.MAX_VALUE : 0;
+        }
+        return slot.stats.meanNanos() / Math.max(slot.stats.hitRate(), MIN_HIT_RATE);
+    }
+
+    private Slot[] fixed(String configuredOrder) {
+        Map<String, Slot> byName = slots.stream().collect(Collectors.toMap(s -> s.rule.name(), Function.identity()));
+        List<Slot> result = new ArrayList<>();
+        for (String name : configuredOrder.split(",")) {
+            Slot slot = byName.remove(name.trim());
+            if (slot == null) {
+                throw new IllegalArgumentException("Regra desconhecida em antifraud.rules.order: " + name.trim());
+            }
+            result.add(slot);
+        }
+        // Regras não listadas continuam ativas, ao final, por prioridade
+        byName.values().stream().sorted(Comparator.comparingInt(s -> s.rule.priority())).forEach(result::add);
+        return result.toArray(Slot[]::new);
+    }
+
+    public record RuleSnapshot(String name, int priority, int position, long evaluations, long hits,
+                               long skipped, double meanMicros, double p99Micros) {
+    }
+
+    private static final class Slot {
+        final RiskRule rule;
+        final RuleStats stats = new RuleStats();
+
+        Slot(RiskRule rule) {
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+
+// Regra vencedora de uma avaliação (nome da regra, código da razão reportada e detalhe, se houver)
+public record RuleMatch(String rule, RiskReason reason, String detail) {
+}
@@ -0,0 +1,87 @@
+package com.projeto.antifraud.service.rule;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Métricas de uma regra: avaliações, acertos, vezes em que foi pulada e
+  histograma de latência em faixas de potência de 2 (nanossegundos).
+  - Sem locks: apenas LongAdder, seguro para o caminho quente.
+*/
+public class RuleStats {
+
+    private static final int BUCKETS = 40; // até ~2^40 ns (~18 min)
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    public RuleStats() {
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    void recordEvaluation(long nanos, boolean hit) {
+        evaluations.increment();
+        if (hit) {
+            hits.increment();
+        }
+        totalNanos.add(nanos);
+        int bucket = nanos <= 1 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+        histogram[bucket].increment();
+    }
+
+    void recordSkip() {
+        skipped.increment();
+    }
+
+    public long evaluations() {
+        return evaluations.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public double meanNanos() {
+        long n = evaluations.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    public double hitRate() {
+        long n = evaluations.sum();
+        return n == 0 ? 0 : (double) hits.sum() / n;
+    }
+
+    // Limite superior da faixa que contém o percentil pedido (ex.: 0.99)
+    public long percentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+}
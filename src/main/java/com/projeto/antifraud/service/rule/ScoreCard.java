@@ -0,0 +1,34 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskContribution;
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
+
+import java.util.List;
+
+/*
+  Resultado do modo de pontuação.
+  - contributions: sinais que corresponderam, na ordem de avaliação (auditoria).
+  - complete: false quando o orçamento de latência acabou antes de a decisão
+    estar garantida; nesse caso o status nunca é APPROVED.
+*/
+public record ScoreCard(int score, RiskStatus status, List<RiskContribution> contributions, boolean complete) {
+
+    /*
+      Código reportado: APPROVED na faixa de aprovação; senão o sinal de maior
+      peso (empate: o primeiro avaliado). Em REVIEW por orçamento esgotado sem
+      nenhum sinal, a análise incompleta é reportada como LOOKUP_TIMEOUT.
+    */
+    public RiskReason reason() {
+        if (status == RiskStatus.APPROVED) {
+            return RiskReason.APPROVED;
+        }
+        RiskContribution top = null;
+        for (RiskContribution c : contributions) {
+            if (top == null || c.weight() > top.weight()) {
+                top = c;
+            }
+        }
+        return top != null ? top.reason() : RiskReason.LOOKUP_TIMEOUT;
+    }
+}
@@ -0,0 +1,80 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/*
+  Política do modo de pontuação.
+  - Peso de cada sinal: RiskReason.defaultWeight, sobrescrito por
+    antifraud.scoring.weights (ex.: "PANIC_MODE=90,GEO_CHANGE=20"); pesos
+    negativos são rejeitados.
+  - Faixas: score >= reject -> REJECTED; >= review -> REVIEW; senão APPROVED.
+  - budget-micros: orçamento de latência da avaliação (0 = sem limite).
+*/
+@Component
+public class ScoringPolicy {
+
+    private final Map<RiskReason, Integer> weights = new EnumMap<>(RiskReason.class);
+    private final int reviewThreshold;
+    private final int rejectThreshold;
+    private final long budgetNanos;
+
+    public ScoringPolicy(@Value("${antifraud.scoring.weights:}") String configuredWeights,
+                         @Value("${antifraud.scoring.review-threshold:40}") int reviewThreshold,
+                         @Value("${antifraud.scoring.reject-threshold:80}") int rejectThreshold,
+                         @Value("${antifraud.scoring.budget-micros:2000}") long budgetMicros) {
+        if (reviewThreshold <= 0 || rejectThreshold < reviewThreshold) {
+            throw new IllegalArgumentException("Faixas de pontuação inválidas: review=" + reviewThreshold
+                    + ", reject=" + rejectThreshold);
+        }
+        for (RiskReason reason : RiskReason.values()) {
+            weights.put(reason, reason.defaultWeight());
+        }
+        if (configuredWeights != null && !configuredWeights.isBlank()) {
+            for (String entry : configuredWeights.split(",")) {
+                String[] kv = entry.split("=");
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("Peso inválido em antifraud.scoring.weights: " + entry.trim());
+                }
+                int weight = Integer.parseInt(kv[1].trim());
+                // Pesos negativos quebrariam a parada antecipada do RuleEngine.score (soma nunca diminui)
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Peso negativo em antifraud.scoring.weights: " + entry.trim());
+                }
+                weights.put(RiskReason.valueOf(kv[0].trim()), weight);
+            }
+        }
+        this.reviewThreshold = reviewThreshold;
+        this.rejectThreshold = rejectThreshold;
+        this.budgetNanos = budgetMicros > 0 ? budgetMicros * 1_000 : Long.MAX_VALUE;
+    }
+
+    public int weight(RiskReason reason) {
+        return weights.get(reason);
+    }
+
+    // Maior peso que a regra pode somar
+    public int maxWeight(RiskRule rule) {
+        int max = 0;
+        for (RiskReason reason : rule.reasons()) {
+            max = Math.max(max, weights.get(reason));
+        }
+        return max;
+    }
+
+    public RiskStatus statusFor(int score) {
+        if (score >= rejectThreshold) {
+            return RiskStatus.REJECTED;
+        }
+        return score >= reviewThreshold ? RiskStatus.REVIEW : RiskStatus.APPROVED;
+    }
+
+    public long budgetNanos() {
+        return budgetNanos;
+    }
+}
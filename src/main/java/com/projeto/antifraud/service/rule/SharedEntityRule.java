@@ -0,0 +1,37 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Regra: um dispositivo ou IP operando muitas contas na última hora ("falsa central")
+@Component
+public class SharedEntityRule implements RiskRule {
+
+    private static final Set<RiskReason> REASONS = EnumSet.of(RiskReason.SHARED_DEVICE, RiskReason.SHARED_IP);
+
+    @Override
+    public String name() { return "shared-entity"; }
+
+    @Override
+    public int priority() { return 25; }
+
+    @Override
+    public Set<RiskReason> reasons() { return REASONS; }
+
+    @Override
+    public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+        if (ctx.sharedDeviceAccounts() >= ctx.thresholds().maxDeviceAccounts()) {
+            return RiskReason.SHARED_DEVICE;
+        }
+        // IPs são compartilhados legitimamente (NAT de operadora, Wi-Fi corporativo): limite maior
+        if (ctx.sharedIpAccounts() >= ctx.thresholds().maxIpAccounts()) {
+            return RiskReason.SHARED_IP;
+        }
+        return null;
+    }
+}
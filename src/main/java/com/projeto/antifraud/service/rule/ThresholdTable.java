@@ -0,0 +1,119 @@
+package com.projeto.antifraud.service.rule;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/*
+  Versão imutável da configuração de limites, trocada inteira a cada recarga.
+  - Precedência: padrões < canal < segmento < canal + segmento; overrides do
+    mesmo nível são aplicados na ordem do arquivo.
+  - Todas as combinações (canal, segmento) citadas nos overrides, mais as
+    linhas "*" (qualquer canal / qualquer segmento), são resolvidas na
+    construção: resolve() são duas leituras de mapa, sem alocação.
+  - Canal/segmento sem override caem na linha "*" correspondente.
+  - Canal sem distinção de maiúsculas (como em ChannelChangeRule): guardado e
+    procurado em maiúsculas.
+*/
+public final class ThresholdTable {
+
+    static final String ANY = "*";
+
+    public static final ThresholdTable DEFAULTS = new ThresholdTable(0, "padrões", RiskThresholds.DEFAULTS, List.of());
+
+    private final long version;
+    private final Instant loadedAt;
+    private final String source;
+    private final RiskThresholds defaults;
+    private final List<RiskThresholds.ThresholdOverride> overrides;
+    private final Map<String, Map<String, RiskThresholds>> table;
+
+    public ThresholdTable(long version, String source, RiskThresholds defaults, List<RiskThresholds.ThresholdOverride> overrides) {
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.source = source;
+        this.defaults = defaults;
+        this.overrides = List.copyOf(overrides);
+        this.table = precompute();
+    }
+
+    private Map<String, Map<String, RiskThresholds>> precompute() {
+        Set<String> channels = new LinkedHashSet<>();
+        Set<String> segments = new LinkedHashSet<>();
+        channels.add(ANY);
+        segments.add(ANY);
+        for (RiskThresholds.ThresholdOverride o : overrides) {
+            channels.add(channelKey(o.channel()));
+            segments.add(key(o.segment()));
+        }
+        Map<String, Map<String, RiskThresholds>> result = new HashMap<>();
+        for (String channel : channels) {
+            Map<String, RiskThresholds> row = new HashMap<>();
+            for (String segment : segments) {
+                row.put(segment, compose(channel, segment));
+            }
+            result.put(channel, Map.copyOf(row));
+        }
+        return Map.copyOf(result);
+    }
+
+    // Aplica, por nível de especificidade, os overrides que valem para (canal, segmento)
+    private RiskThresholds compose(String channel, String segment) {
+        RiskThresholds resolved = defaults;
+        for (int level = 0; level < 4; level++) {
+            for (RiskThresholds.ThresholdOverride o : overrides) {
+                String c = channelKey(o.channel());
+                String s = key(o.segment());
+                int specificity = (c.equals(ANY) ? 0 : 1) + (s.equals(ANY) ? 0 : 2);
+                if (specificity == level
+                        && (c.equals(ANY) || c.equals(channel))
+                        && (s.equals(ANY) || s.equals(segment))) {
+                    resolved = o.applyTo(resolved);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    public RiskThresholds resolve(String channel, String segment) {
+        Map<String, RiskThresholds> row = table.get(channelKey(channel));
+        if (row == null) {
+            row = table.get(ANY);
+        }
+        RiskThresholds resolved = row.get(key(segment));
+        return resolved != null ? resolved : row.get(ANY);
+    }
+
+    private static String key(String value) {
+        return value == null || value.isBlank() ? ANY : value;
+    }
+
+    // toUpperCase devolve a própria string quando já está em maiúsculas: sem alocação no caso comum
+    private static String channelKey(String channel) {
+        return key(channel).toUpperCase(Locale.ROOT);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public RiskThresholds defaults() {
+        return defaults;
+    }
+
+    public List<RiskThresholds.ThresholdOverride> overrides() {
+        return overrides;
+    }
+}
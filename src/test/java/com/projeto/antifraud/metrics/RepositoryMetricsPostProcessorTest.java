@@ -0,0 +1,103 @@
+package com.projeto.antifraud.metrics;
+
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para RepositoryMetricsPostProcessor.
+  - Objetivo: chamadas aos repositórios da aplicação geram tempo e tamanho do
+    resultado por repositório e método; outros beans passam intactos.
+*/
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RepositoryMetricsPostProcessorTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRollupRepository accountRollupRepository;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> registryProvider;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private TransactionRepository instrumented;
+
+    @BeforeEach
+    void setUp() {
+        when(registryProvider.getObject()).thenReturn(registry);
+        instrumented = (TransactionRepository) new RepositoryMetricsPostProcessor(registryProvider)
+                .postProcessAfterInitialization(transactionRepository, "transactionRepository");
+    }
+
+    // Teste: consulta de lista registra duração e número de linhas devolvidas
+    @Test
+    void listQuery_recordsTimeAndRows() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+        Transaction t = new Transaction(new BigDecimal("10.00"), "s1", "r1", ts);
+        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(eq("s1"), any())).thenReturn(List.of(t, t, t));
+
+        assertEquals(3, instrumented.findBySenderAccountIdAndTimestampAfter("s1", ts.minusHours(1)).size());
+
+        assertEquals(1, registry.find("antifraud.repository.calls").tag("repository", "TransactionRepository")
+                .tag("method", "findBySenderAccountIdAndTimestampAfter").tag("outcome", "success").timer().count());
+        assertEquals(3.0, registry.find("antifraud.repository.results")
+                .tag("method", "findBySenderAccountIdAndTimestampAfter").summary().totalAmount());
+    }
+
+    // Teste: exceção do banco é cronometrada como erro e propagada
+    @Test
+    void failingQuery_recordsErrorOutcome() {
+        when(transactionRepository.existsByReceiverAccountId("r1")).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> instrumented.existsByReceiverAccountId("r1"));
+
+        assertEquals(1, registry.find("antifraud.repository.calls")
+                .tag("method", "existsByReceiverAccountId").tag("outcome", "error").timer().count());
+    }
+
+    // Teste: repositórios de resumo (consultados no caminho quente) também são medidos, com a própria tag
+    @Test
+    void rollupRepository_isInstrumented() {
+        AccountRollupRepository rollups = (AccountRollupRepository) new RepositoryMetricsPostProcessor(registryProvider)
+                .postProcessAfterInitialization(accountRollupRepository, "accountRollupRepository");
+        when(accountRollupRepository.findLastSeenBySenderAccountId("s1")).thenReturn(Optional.empty());
+
+        rollups.findLastSeenBySenderAccountId("s1");
+
+        assertEquals(1, registry.find("antifraud.repository.calls").tag("repository", "AccountRollupRepository")
+                .tag("method", "findLastSeenBySenderAccountId").tag("outcome", "success").timer().count());
+        assertEquals(0.0, registry.find("antifraud.repository.results").tag("repository", "AccountRollupRepository")
+                .summary().totalAmount());
+    }
+
+    // Teste: beans que não são repositórios da aplicação não são embrulhados
+    @Test
+    void otherBeans_areNotProxied() {
+        Object bean = new Object();
+
+        assertSame(bean, new RepositoryMetricsPostProcessor(registryProvider).postProcessAfterInitialization(bean, "other"));
+    }
+}
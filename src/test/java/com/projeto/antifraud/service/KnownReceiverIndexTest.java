@@ -0,0 +1,87 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.repository.ReceiverRollupRepository;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para KnownReceiverIndex.
+  - Objetivo: garantir que a resposta negativa do filtro não consulta o banco
+    e que respostas positivas são confirmadas de forma exata.
+*/
+@ExtendWith(MockitoExtension.class)
+class KnownReceiverIndexTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReceiverRollupRepository receiverRollupRepository;
+
+    @InjectMocks
+    private KnownReceiverIndex knownReceiverIndex;
+
+    // Teste: recebedor ausente do filtro é novo sem ida ao banco
+    @Test
+    void whenReceiverNotInFilter_thenNewWithoutQuery() {
+        when(transactionRepository.streamDistinctReceiverAccountIds()).thenReturn(Stream.of("r1", "r2"));
+        knownReceiverIndex.warmUp();
+
+        assertFalse(knownReceiverIndex.isKnown("never-seen"));
+        verify(transactionRepository, never()).existsByReceiverAccountId(anyString());
+    }
+
+    // Teste: recebedor aquecido é confirmado uma vez no banco e depois em memória
+    @Test
+    void whenReceiverInFilter_thenConfirmedOnce() {
+        when(transactionRepository.streamDistinctReceiverAccountIds()).thenReturn(Stream.of("r1"));
+        when(transactionRepository.existsByReceiverAccountId("r1")).thenReturn(true);
+        knownReceiverIndex.warmUp();
+
+        assertTrue(knownReceiverIndex.isKnown("r1"));
+        assertTrue(knownReceiverIndex.isKnown("r1"));
+        verify(transactionRepository, times(1)).existsByReceiverAccountId("r1");
+    }
+
+    // Teste: antes do aquecimento, a consulta exata é a fonte da verdade
+    @Test
+    void whenNotWarmed_thenFallsBackToExactQuery() {
+        when(transactionRepository.existsByReceiverAccountId("r9")).thenReturn(true);
+
+        assertTrue(knownReceiverIndex.isKnown("r9"));
+    }
+
+    // Teste: recebedor marcado após salvar passa a ser conhecido sem consulta
+    @Test
+    void whenMarkedSeen_thenKnownWithoutQuery() {
+        when(transactionRepository.streamDistinctReceiverAccountIds()).thenReturn(Stream.empty());
+        knownReceiverIndex.warmUp();
+
+        knownReceiverIndex.markSeen("r5");
+
+        assertTrue(knownReceiverIndex.isKnown("r5"));
+        verify(transactionRepository, never()).existsByReceiverAccountId(anyString());
+    }
+
+    // Teste: recebedor que só existe no histórico arquivado é confirmado pelo resumo, sem consultar a tabela quente
+    @Test
+    void whenReceiverOnlyArchived_thenConfirmedByRollup() {
+        when(transactionRepository.streamDistinctReceiverAccountIds()).thenReturn(Stream.empty());
+        when(receiverRollupRepository.streamReceiverAccountIds()).thenReturn(Stream.of("r-old"));
+        when(receiverRollupRepository.existsById("r-old")).thenReturn(true);
+        knownReceiverIndex.warmUp();
+
+        assertTrue(knownReceiverIndex.isKnown("r-old"));
+        verify(transactionRepository, never()).existsByReceiverAccountId(anyString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para LastSeenCache.
+  - Objetivo: falta carrega uma vez, registros concorrentes da mesma conta
+    mantêm o mais recente e contas registradas sem carga ainda consultam o banco.
+*/
+class LastSeenCacheTest {
+
+    private final LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+
+    private Transaction tx(String sender, String deviceId, LocalDateTime timestamp) {
+        Transaction t = new Transaction(new BigDecimal("10.00"), sender, "r1", timestamp);
+        t.setDeviceId(deviceId);
+        return t;
+    }
+
+    // Teste: a falta chama o loader uma vez; leituras seguintes são acertos (inclusive "sem histórico")
+    @Test
+    void whenLoaded_thenNextReadsHit() {
+        LastSeenCache cache = new LastSeenCache(100, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("new", () -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get("new", () -> { loads.incrementAndGet(); return null; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    // Teste: registro mais antigo não sobrescreve o mais recente
+    @Test
+    void whenOlderRecorded_thenNewestWins() {
+        LastSeenCache cache = new LastSeenCache(100, 60);
+        cache.get("s1", () -> null);
+
+        cache.record(tx("s1", "dev-new", ts));
+        cache.record(tx("s1", "dev-old", ts.minusMinutes(5)));
+
+        assertEquals("dev-new", cache.get("s1", () -> fail("não deveria consultar")).deviceId());
+    }
+
+    // Teste: conta só registrada (parcial) consulta o banco e fica com o mais recente dos dois
+    @Test
+    void whenOnlyRecorded_thenLoadsAndMerges() {
+        LastSeenCache cache = new LastSeenCache(100, 60);
+        cache.record(tx("s2", "dev-recorded", ts));
+        assertFalse(cache.isCached("s2"));
+
+        LastSeen out = cache.get("s2", () -> LastSeen.of(tx("s2", "dev-db", ts.minusHours(1))));
+
+        assertEquals("dev-recorded", out.deviceId());
+        assertTrue(cache.isCached("s2"));
+    }
+
+    // Teste: lote carrega só as faltas, de uma vez
+    @Test
+    void whenGetAll_thenOnlyMissesLoaded() {
+        LastSeenCache cache = new LastSeenCache(100, 60);
+        cache.get("a", () -> LastSeen.of(tx("a", "dev-a", ts)));
+
+        Map<String, LastSeen> out = cache.getAll(List.of("a", "b", "c"), missing -> {
+            assertEquals(List.of("b", "c"), missing);
+            return Map.of("b", LastSeen.of(tx("b", "dev-b", ts)));
+        });
+
+        assertEquals("dev-a", out.get("a").deviceId());
+        assertEquals("dev-b", out.get("b").deviceId());
+        assertNull(out.get("c"));
+        assertTrue(cache.isCached("c"));
+    }
+
+    // Teste: registros simultâneos da mesma conta terminam com o maior timestamp
+    @Test
+    void whenConcurrentRecords_thenLatestKept() throws InterruptedException {
+        LastSeenCache cache = new LastSeenCache(100, 60);
+        cache.get("hot", () -> null);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1_000; i++) {
+            int minute = i;
+            pool.execute(() -> cache.record(tx("hot", "dev-" + minute, ts.plusMinutes(minute))));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals("dev-999", cache.get("hot", () -> null).deviceId());
+    }
+}
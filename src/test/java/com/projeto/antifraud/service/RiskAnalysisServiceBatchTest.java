@@ -0,0 +1,186 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.metrics.AnalysisMetrics;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.persistence.TransactionWriter;
+import com.projeto.antifraud.service.rule.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para RiskAnalysisService.analyzeBatch.
+  - Objetivo: garantir que o lote produz as mesmas decisões de chamadas
+    sequenciais (velocidade e recebedores dentro do lote) com acesso
+    agrupado ao repositório.
+  - Abordagem: VelocityEngine, LastSeenCache, RiskContextLoader e RuleEngine reais;
+    TransactionRepository, KnownReceiverIndex e TransactionWriter mockados.
+*/
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RiskAnalysisServiceBatchTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRollupRepository accountRollupRepository;
+
+    @Mock
+    private KnownReceiverIndex knownReceiverIndex;
+
+    @Mock
+    private TransactionWriter transactionWriter;
+
+    @Spy
+    private VelocityEngine velocityEngine = new VelocityEngine();
+
+    @Spy
+    private LastSeenCache lastSeenCache = new LastSeenCache(1_000, 60);
+
+    @Spy
+    private SharedEntityIndex sharedEntityIndex = new SharedEntityIndex(60);
+
+    @Mock
+    private AnalysisMetrics analysisMetrics;
+
+    @Spy
+    private ShardedAnalysisExecutor shardedAnalysisExecutor = new ShardedAnalysisExecutor(2, 64);
+
+    @Spy
+    private RiskContextLoader riskContextLoader = new RiskContextLoader();
+
+    @Spy
+    private RuleEngine ruleEngine = new RuleEngine(List.of(
+            new AuthAttemptsRule(), new PanicModeRule(), new SharedEntityRule(), new ChannelChangeRule(), new DeviceChangeRule(),
+            new GeoChangeRule(), new MultipleReceiversRule(), new HighAmountRule(), new NewReceiverRule()), "");
+
+    @InjectMocks
+    private RiskAnalysisService riskAnalysisService;
+
+    @BeforeEach
+    void wireLoader() {
+        ReflectionTestUtils.setField(riskContextLoader, "velocityEngine", velocityEngine);
+        ReflectionTestUtils.setField(riskContextLoader, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(riskContextLoader, "accountRollupRepository", accountRollupRepository);
+        ReflectionTestUtils.setField(riskContextLoader, "knownReceiverIndex", knownReceiverIndex);
+        ReflectionTestUtils.setField(riskContextLoader, "transactionWriter", transactionWriter);
+        ReflectionTestUtils.setField(riskContextLoader, "lastSeenCache", lastSeenCache);
+        ReflectionTestUtils.setField(riskContextLoader, "sharedEntityIndex", sharedEntityIndex);
+        ReflectionTestUtils.setField(riskContextLoader, "analysisMetrics", analysisMetrics);
+        ReflectionTestUtils.setField(riskContextLoader, "thresholdsRegistry", new RiskThresholdsRegistry());
+    }
+
+    // Helper: cria uma transação base com campos padrão
+    private Transaction tx(String sender, String receiver, String amount, LocalDateTime ts) {
+        Transaction t = new Transaction(new BigDecimal(amount), sender, receiver, ts);
+        t.setChannel("APP");
+        t.setDeviceId("dev-" + sender);
+        t.setGeoLocation("BR");
+        t.setAuthAttempts(0);
+        return t;
+    }
+
+    // Teste: rajada do mesmo remetente dentro do lote dispara o modo pânico
+    @Test
+    void whenBurstInsideBatch_thenPanicModeDetected() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+        List<Transaction> batch = List.of(
+                tx("b1","r1","10.00", ts.plusMinutes(3)),
+                tx("b1","r1","10.00", ts),
+                tx("b1","r1","10.00", ts.plusMinutes(1)),
+                tx("b1","r1","10.00", ts.plusMinutes(2)));
+
+        List<Transaction> out = riskAnalysisService.analyzeBatch(batch);
+
+        assertEquals("ALERTA: Possível ataque em modo pânico. Transações demais em curto período.", out.get(0).getRiskReason());
+        assertEquals("Transação aprovada.", out.get(1).getRiskReason());
+        assertEquals("Transação aprovada.", out.get(2).getRiskReason());
+        assertEquals("Transação aprovada.", out.get(3).getRiskReason());
+        verify(transactionRepository, times(1)).findLastSeenBySenderAccountIdIn(anyCollection());
+        verify(transactionWriter, times(1)).writeAll(anyList());
+        verify(transactionRepository, never()).findLastSeenFirstBySenderAccountIdOrderByTimestampDesc(anyString());
+    }
+
+    // Teste: recebedor visto antes no lote (outro remetente) não é tratado como novo
+    @Test
+    void whenReceiverSeenEarlierInBatch_thenNotNew() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,10,0);
+        List<Transaction> batch = List.of(
+                tx("a","shared","10.00", ts),
+                tx("b","shared","1500.00", ts.plusHours(1)),
+                tx("c","fresh","1500.00", ts.plusHours(1)));
+
+        List<Transaction> out = riskAnalysisService.analyzeBatch(batch);
+
+        assertFalse(out.get(1).isSuspicious());
+        assertEquals("Recebedor novo e montante elevado.", out.get(2).getRiskReason());
+        verify(knownReceiverIndex, times(1)).knownAmong(anyCollection());
+    }
+
+    // Teste: requisições simultâneas da mesma conta passam em série pelo shard; a rajada é detectada
+    @Test
+    void whenConcurrentRequestsForSameSender_thenBurstDetected() {
+        when(transactionWriter.write(any())).thenAnswer(i -> i.getArgument(0));
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+        ExecutorService clients = Executors.newFixedThreadPool(6);
+        try {
+            List<CompletableFuture<Transaction>> calls = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                Transaction t = tx("c1", "r1", "10.00", ts);
+                calls.add(CompletableFuture.supplyAsync(() -> riskAnalysisService.analyzeTransaction(t), clients));
+            }
+            long panic = calls.stream().map(CompletableFuture::join)
+                    .filter(t -> t.getRiskCode() == RiskReason.PANIC_MODE).count();
+
+            assertEquals(3, panic);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    // Teste: consultas ao banco da análise individual rodam na thread do chamador, não na do shard
+    @Test
+    void whenSingleAnalysis_thenDbLookupsRunOutsideShard() {
+        when(transactionWriter.write(any())).thenAnswer(i -> i.getArgument(0));
+        List<String> lookupThreads = new ArrayList<>();
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("d1")).thenAnswer(i -> {
+            lookupThreads.add(Thread.currentThread().getName());
+            return Optional.empty();
+        });
+        when(knownReceiverIndex.knownInMemory("r1")).thenReturn(null);
+        when(knownReceiverIndex.confirmExact("r1")).thenAnswer(i -> {
+            lookupThreads.add(Thread.currentThread().getName());
+            return true;
+        });
+
+        // Acima do mínimo de recebedor novo e abaixo do limite de montante alto: as duas consultas são necessárias
+        Transaction out = riskAnalysisService.analyzeTransaction(tx("d1", "r1", "1500.00", LocalDateTime.of(2025,11,27,12,0)));
+
+        assertEquals(RiskReason.APPROVED, out.getRiskCode());
+        assertEquals(List.of(Thread.currentThread().getName(), Thread.currentThread().getName()), lookupThreads);
+    }
+}
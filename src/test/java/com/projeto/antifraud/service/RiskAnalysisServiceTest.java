@@ -1,18 +1,26 @@
 package com.projeto.antifraud.service;
 
+import com.projeto.antifraud.dto.TransactionRequest;
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
 import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.metrics.AnalysisMetrics;
 import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.persistence.TransactionWriter;
+import com.projeto.antifraud.service.rule.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -21,8 +29,10 @@ import static org.mockito.Mockito.*;
 /*
   Testes unitários para RiskAnalysisService.
   - Objetivo: validar cada regra heurística isoladamente.
-  - Abordagem: mockar TransactionRepository com Mockito para controlar
-    o histórico de transações e verificar a razão (riskReason) retornada.
+  - Abordagem: as regras reais rodam no RuleEngine sobre o RiskContext; o
+    RiskContextLoader é mockado com Mockito para controlar o histórico
+    (velocidade, última transação, recebedor conhecido) e verificar a
+    razão (riskReason) retornada.
 */
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -31,6 +41,38 @@ class RiskAnalysisServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransactionWriter transactionWriter;
+
+    @Mock
+    private RiskContextLoader riskContextLoader;
+
+    @Spy
+    private RuleEngine ruleEngine = new RuleEngine(List.of(
+            new AuthAttemptsRule(), new PanicModeRule(), new SharedEntityRule(), new ChannelChangeRule(), new DeviceChangeRule(),
+            new GeoChangeRule(), new MultipleReceiversRule(), new HighAmountRule(), new NewReceiverRule()), "");
+
+    @Spy
+    private ScoringPolicy scoringPolicy = new ScoringPolicy("", 40, 80, 0);
+
+    @Mock
+    private VelocityEngine velocityEngine;
+
+    @Mock
+    private KnownReceiverIndex knownReceiverIndex;
+
+    @Mock
+    private LastSeenCache lastSeenCache;
+
+    @Mock
+    private SharedEntityIndex sharedEntityIndex;
+
+    @Mock
+    private AnalysisMetrics analysisMetrics;
+
+    @Spy
+    private ShardedAnalysisExecutor shardedAnalysisExecutor = new ShardedAnalysisExecutor(2, 64);
+
     @InjectMocks
     private RiskAnalysisService riskAnalysisService;
 
@@ -45,6 +87,15 @@ class RiskAnalysisServiceTest {
         return t;
     }
 
+    // Helper: analisa a transação com o snapshot informado
+    private Transaction analyze(Transaction tx, int recentCount, int distinctReceivers, Transaction last, boolean receiverKnown) {
+        RiskContext ctx = RiskContext.of(recentCount, distinctReceivers,
+                last != null ? LastSeen.of(last) : null, receiverKnown);
+        when(riskContextLoader.load(eq(tx), any())).thenReturn(ctx);
+        when(transactionWriter.write(any())).thenAnswer(i -> i.getArgument(0));
+        return riskAnalysisService.analyzeTransaction(tx);
+    }
+
     // Teste: múltiplas tentativas de autenticação disparam alerta crítico
     @Test
     void whenAuthAttemptsHigh_thenMarkSuspicious() {
@@ -52,17 +103,10 @@ class RiskAnalysisServiceTest {
         Transaction tx = baseTx("s1","r1", ts);
         tx.setAuthAttempts(3);
 
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyString()))
-                .thenReturn(Optional.empty());
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 0, 1, null, false);
 
         assertTrue(out.isSuspicious());
+        assertEquals(RiskReason.AUTH_ATTEMPTS, out.getRiskCode());
         assertEquals("ALERTA: Múltiplas tentativas de autenticação falhadas.", out.getRiskReason());
     }
 
@@ -72,19 +116,7 @@ class RiskAnalysisServiceTest {
         LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
         Transaction tx = baseTx("s2","r2", ts);
 
-        List<Transaction> recent = Arrays.asList(
-                baseTx("s2","rX", ts.minusMinutes(1)),
-                baseTx("s2","rY", ts.minusMinutes(2)),
-                baseTx("s2","rZ", ts.minusMinutes(3))
-        );
-
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(eq("s2"), any(LocalDateTime.class)))
-                .thenReturn(recent);
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyString()))
-                .thenReturn(Optional.empty());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 3, 4, null, true);
 
         assertTrue(out.isSuspicious());
         assertEquals("ALERTA: Possível ataque em modo pânico. Transações demais em curto período.", out.getRiskReason());
@@ -100,15 +132,7 @@ class RiskAnalysisServiceTest {
         Transaction tx = baseTx("s3","r-new", ts);
         tx.setDeviceId("device-new");
 
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(eq("s3"), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(eq("s3")))
-                .thenReturn(Optional.of(last));
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 0, 1, last, false);
 
         assertTrue(out.isSuspicious());
         assertEquals("Dispositivo diferente do último registrado para a conta.", out.getRiskReason());
@@ -124,43 +148,22 @@ class RiskAnalysisServiceTest {
         Transaction tx = baseTx("s4","r-new", ts);
         tx.setChannel("PHONE");
 
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(eq("s4"), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(eq("s4")))
-                .thenReturn(Optional.of(last));
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 0, 1, last, false);
 
         assertTrue(out.isSuspicious());
         assertTrue(out.getRiskReason().contains("udança de canal incomum"));
     }
 
-    // Teste: muitos receptores distintos em 1 hora -> padrão suspeito
+    // Teste: muitos receptores distintos na janela -> padrão suspeito
     @Test
     void whenManyDistinctReceiversInHour_thenMarkSuspicious() {
         LocalDateTime ts = LocalDateTime.of(2025,11,27,16,0);
         Transaction tx = baseTx("s5","r3", ts);
 
-        List<Transaction> lastHour = Arrays.asList(
-                baseTx("s5","r1", ts.minusMinutes(50)),
-                baseTx("s5","r2", ts.minusMinutes(30))
-        );
-
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(eq("s5"), any(LocalDateTime.class)))
-                .thenReturn(lastHour);
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyString()))
-                .thenReturn(Optional.empty());
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 0, 3, null, false);
 
         assertTrue(out.isSuspicious());
-        assertEquals("Padrão suspeito: múltiplos recebedores distintos em 1 hora.", out.getRiskReason());
+        assertEquals(RiskReason.MULTIPLE_RECEIVERS.message(), out.getRiskReason());
     }
 
     // Teste: receptor novo e montante alto -> suspeita
@@ -170,20 +173,26 @@ class RiskAnalysisServiceTest {
         Transaction tx = baseTx("s6","newReceiver", ts);
         tx.setAmount(new BigDecimal("1500.00"));
 
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyString()))
-                .thenReturn(Optional.empty());
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(eq("newReceiver"), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 0, 1, null, false);
 
         assertTrue(out.isSuspicious());
         assertEquals("Recebedor novo e montante elevado.", out.getRiskReason());
     }
 
+    // Teste: recebedor já conhecido com montante alto não é tratado como novo
+    @Test
+    void whenReceiverIsKnownAndHighAmount_thenApproved() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,17,0);
+        Transaction tx = baseTx("s9","knownReceiver", ts);
+        tx.setAmount(new BigDecimal("1500.00"));
+
+        Transaction out = analyze(tx, 0, 1, null, true);
+
+        assertFalse(out.isSuspicious());
+        assertEquals(RiskReason.APPROVED, out.getRiskCode());
+        assertEquals("Transação aprovada.", out.getRiskReason());
+    }
+
     // Teste: montante alto durante a noite -> alerta crítico (prioridade)
     @Test
     void whenHighAmountAtNight_thenCriticalAlert() {
@@ -191,15 +200,7 @@ class RiskAnalysisServiceTest {
         Transaction tx = baseTx("s7","r7", ts);
         tx.setAmount(new BigDecimal("3000.00"));
 
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyString()))
-                .thenReturn(Optional.empty());
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+        Transaction out = analyze(tx, 0, 1, null, false);
 
         assertTrue(out.isSuspicious());
         assertEquals("ALERTA CRÍTICO: Transação de alto valor em horário atípico.", out.getRiskReason());
@@ -212,17 +213,115 @@ class RiskAnalysisServiceTest {
         Transaction tx = baseTx("s8","r8", ts);
         tx.setAmount(new BigDecimal("50.00"));
 
-        when(transactionRepository.findBySenderAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.findTopBySenderAccountIdOrderByTimestampDesc(anyString()))
-                .thenReturn(Optional.empty());
-        when(transactionRepository.findByReceiverAccountIdAndTimestampAfter(anyString(), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
-        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        Transaction out = analyze(tx, 0, 1, null, false);
+
+        assertFalse(out.isSuspicious());
+        assertEquals("Transação aprovada.", out.getRiskReason());
+    }
+
+    // Teste: dispositivo usado por várias contas na última hora -> "falsa central"
+    @Test
+    void whenDeviceSharedByManyAccounts_thenMarkSuspicious() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,11,0);
+        Transaction tx = baseTx("s14","r14", ts);
+        when(riskContextLoader.load(eq(tx), any())).thenReturn(RiskContext.of(0, 1, null, true).withSharedAccounts(3, 1));
+        when(transactionWriter.write(any())).thenAnswer(i -> i.getArgument(0));
+
+        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+
+        assertTrue(out.isSuspicious());
+        assertEquals(RiskReason.SHARED_DEVICE, out.getRiskCode());
+    }
+
+    // Teste: IP compartilhado por poucas contas (NAT) não é suspeito
+    @Test
+    void whenIpSharedByFewAccounts_thenApproved() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,11,0);
+        Transaction tx = baseTx("s15","r15", ts);
+        when(riskContextLoader.load(eq(tx), any())).thenReturn(RiskContext.of(0, 1, null, true).withSharedAccounts(1, 5));
+        when(transactionWriter.write(any())).thenAnswer(i -> i.getArgument(0));
 
         Transaction out = riskAnalysisService.analyzeTransaction(tx);
 
         assertFalse(out.isSuspicious());
-        assertEquals("Transação aprovada.", out.getRiskReason());
     }
-}
\ No newline at end of file
+
+    // Teste: o resultado é persistido e o estado em memória é atualizado
+    @Test
+    void whenAnalyzed_thenStateIsRecorded() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,11,0);
+        Transaction tx = baseTx("s10","r10", ts);
+
+        analyze(tx, 0, 1, null, true);
+
+        verify(transactionWriter).write(tx);
+        verify(velocityEngine).record(tx);
+        verify(lastSeenCache).record(tx);
+        verify(sharedEntityIndex).record(tx);
+        verify(knownReceiverIndex).markSeen("r10");
+        verify(analysisMetrics).recordAnalysis(eq(tx), anyLong());
+    }
+
+    // Teste: a moeda da requisição chega à transação gravada
+    @Test
+    void whenRequestHasCurrency_thenItIsSaved() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,11,0);
+        Transaction tx = new TransactionRequest(new BigDecimal("10.00"), "BRL", "s11", "r11", "c11",
+                "APP", "dev-1", "1.1.1.1", "BR", 0, ts, null).toEntity();
+
+        analyze(tx, 0, 1, null, true);
+
+        verify(transactionWriter).write(argThat(saved -> "BRL".equals(saved.getCurrency())));
+    }
+
+    // Teste: histórico indisponível no prazo -> suspeita para revisão manual, não aprovação
+    @Test
+    void whenLookupTimesOut_thenManualReview() {
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,11,0);
+        Transaction tx = baseTx("s11","r11", ts);
+        tx.setAmount(new BigDecimal("1500.00"));
+        RiskContext ctx = new RiskContext(0, 1, c -> null, c -> {
+            throw new LookupTimeoutException("receiverKnown", 500, null);
+        });
+        when(riskContextLoader.load(eq(tx), any())).thenReturn(ctx);
+        when(transactionWriter.write(any())).thenAnswer(i -> i.getArgument(0));
+
+        Transaction out = riskAnalysisService.analyzeTransaction(tx);
+
+        assertTrue(out.isSuspicious());
+        assertEquals(RiskReason.LOOKUP_TIMEOUT, out.getRiskCode());
+        assertEquals(RiskReason.LOOKUP_TIMEOUT.message(), out.getRiskReason());
+        verify(transactionWriter).write(tx);
+    }
+
+    // Teste: modo de pontuação soma canal + dispositivo (25 + 35) -> REVIEW com os sinais auditáveis
+    @Test
+    void whenScoringMode_thenStatusAndContributionsAreFilled() {
+        ReflectionTestUtils.setField(riskAnalysisService, "mode", RiskAnalysisService.Mode.SCORING);
+        LocalDateTime ts = LocalDateTime.of(2025,11,27,15,0);
+        Transaction last = baseTx("s12","r-old", ts.minusMinutes(10));
+        last.setChannel("WEB");
+        last.setDeviceId("device-old");
+
+        Transaction out = analyze(baseTx("s12","r12", ts), 0, 1, last, true);
+
+        assertTrue(out.isSuspicious());
+        assertEquals(RiskStatus.REVIEW.name(), out.getStatus());
+        assertEquals(Integer.valueOf(60), out.getRiskScore());
+        assertEquals(RiskReason.DEVICE_CHANGE, out.getRiskCode());
+        assertEquals(2, out.getRiskContributions().size());
+    }
+
+    // Teste: modo de pontuação sem sinais -> APPROVED com pontuação zero
+    @Test
+    void whenScoringModeAndNoSignals_thenApproved() {
+        ReflectionTestUtils.setField(riskAnalysisService, "mode", RiskAnalysisService.Mode.SCORING);
+        Transaction tx = baseTx("s13","r13", LocalDateTime.of(2025,11,27,11,0));
+
+        Transaction out = analyze(tx, 0, 1, null, true);
+
+        assertFalse(out.isSuspicious());
+        assertEquals(RiskStatus.APPROVED.name(), out.getStatus());
+        assertEquals(RiskReason.APPROVED, out.getRiskCode());
+    }
+}
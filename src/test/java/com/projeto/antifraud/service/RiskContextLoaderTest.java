@@ -0,0 +1,281 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.metrics.AnalysisMetrics;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.LastSeenView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.persistence.TransactionWriter;
+import com.projeto.antifraud.service.rule.RiskThresholds;
+import com.projeto.antifraud.service.rule.RiskThresholdsRegistry;
+import com.projeto.antifraud.service.rule.ThresholdTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para RiskContextLoader.
+  - Objetivo: garantir que o snapshot é montado com no máximo duas idas
+    ao banco (última transação + confirmação exata do recebedor), todas no
+    prefetch, e que a montagem na thread do shard não consulta o banco.
+  - O prefetch só consulta atributos que alguma regra pode ler.
+*/
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RiskContextLoaderTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRollupRepository accountRollupRepository;
+
+    @Mock
+    private VelocityEngine velocityEngine;
+
+    @Mock
+    private KnownReceiverIndex knownReceiverIndex;
+
+    @Mock
+    private TransactionWriter transactionWriter;
+
+    @Spy
+    private LastSeenCache lastSeenCache = new LastSeenCache(1_000, 60);
+
+    @Spy
+    private SharedEntityIndex sharedEntityIndex = new SharedEntityIndex(60);
+
+    @Mock
+    private AnalysisMetrics analysisMetrics;
+
+    @Spy
+    private RiskThresholdsRegistry thresholdsRegistry = new RiskThresholdsRegistry();
+
+    @InjectMocks
+    private RiskContextLoader riskContextLoader;
+
+    private final LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+
+    // Helper: projeção da última transação gravada
+    private static Optional<LastSeenView> view(String sender, String deviceId, LocalDateTime timestamp) {
+        return Optional.of(new LastSeenView() {
+            public String getSenderAccountId() { return sender; }
+            public String getChannel() { return "APP"; }
+            public String getDeviceId() { return deviceId; }
+            public String getGeoLocation() { return "BR"; }
+            public LocalDateTime getTimestamp() { return timestamp; }
+        });
+    }
+
+    // Teste: recebedor decidido em memória -> apenas a consulta da última transação
+    @Test
+    void whenReceiverResolvedInMemory_thenSingleQuery() {
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s1", "r1", ts);
+
+        when(velocityEngine.countSince(eq("s1"), any())).thenReturn(2);
+        when(velocityEngine.distinctReceiversSince(eq("s1"), any(), eq("r1"))).thenReturn(2);
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s1")).thenReturn(view("s1", "dev-1", ts.minusMinutes(10)));
+        when(knownReceiverIndex.knownInMemory("r1")).thenReturn(Boolean.FALSE);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertEquals(2, ctx.recentCount());
+        assertEquals(2, ctx.distinctReceivers());
+        assertEquals("dev-1", ctx.lastSeen().deviceId());
+        assertFalse(ctx.receiverKnown());
+        assertEquals(1, ctx.dbQueries());
+        verify(knownReceiverIndex, never()).confirmExact(anyString());
+    }
+
+    // Teste: prefetch faz as consultas; a montagem no shard só lê memória e vê o registro mais novo
+    @Test
+    void whenPrefetched_thenShardLoadDoesNotQuery() {
+        Transaction tx = new Transaction(new BigDecimal("1500.00"), "s3", "r3", ts);
+        tx.setChannel("APP");
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s3")).thenReturn(view("s3", "dev-old", ts.minusMinutes(10)));
+        when(knownReceiverIndex.knownInMemory("r3")).thenReturn(null);
+        when(knownReceiverIndex.confirmExact("r3")).thenReturn(true);
+
+        RiskContextLoader.Prefetched prefetched = riskContextLoader.prefetch(tx);
+        clearInvocations(transactionRepository, knownReceiverIndex);
+        // Transação da mesma conta registrada no shard entre o prefetch e a análise
+        lastSeenCache.record("s3", new LastSeen("APP", "dev-new", "BR", ts.minusMinutes(1)));
+        RiskContext ctx = riskContextLoader.load(tx, prefetched);
+
+        assertEquals("dev-new", ctx.lastSeen().deviceId());
+        assertTrue(ctx.receiverKnown());
+        assertEquals(2, ctx.dbQueries());
+        verifyNoInteractions(transactionRepository, accountRollupRepository, knownReceiverIndex);
+    }
+
+    // Teste: montante baixo, sem canal/dispositivo -> nenhuma regra lê o histórico e o prefetch não consulta
+    @Test
+    void whenNoRuleCanReadHistory_thenPrefetchDoesNotQuery() {
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s10", "r10", ts);
+        tx.setGeoLocation("BR");
+        when(knownReceiverIndex.knownInMemory("r10")).thenReturn(null);
+
+        RiskContextLoader.Prefetched prefetched = riskContextLoader.prefetch(tx);
+
+        assertEquals(0, prefetched.dbQueries());
+        verifyNoInteractions(transactionRepository, accountRollupRepository);
+        verify(knownReceiverIndex, never()).confirmExact(anyString());
+    }
+
+    // Teste: transação ainda na fila write-behind prevalece sobre a última gravada
+    @Test
+    void whenNewerTransactionIsQueued_thenPendingLastSeenWins() {
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s4", "r4", ts);
+
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s4")).thenReturn(view("s4", "dev-old", ts.minusMinutes(10)));
+        when(transactionWriter.pendingLastSeen("s4")).thenReturn(new LastSeen("APP", "dev-queued", "BR", ts.minusMinutes(1)));
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertEquals("dev-queued", ctx.lastSeen().deviceId());
+    }
+
+    // Teste: conta sem linhas na tabela quente usa a última transação arquivada (resumo)
+    @Test
+    void whenSenderOnlyArchived_thenLastSeenFromRollup() {
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s8", "r8", ts);
+
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s8")).thenReturn(Optional.empty());
+        when(accountRollupRepository.findLastSeenBySenderAccountId("s8")).thenReturn(view("s8", "dev-arq", ts.minusDays(40)));
+        when(knownReceiverIndex.knownInMemory("r8")).thenReturn(Boolean.TRUE);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertEquals("dev-arq", ctx.lastSeen().deviceId());
+        verify(accountRollupRepository, times(1)).findLastSeenBySenderAccountId("s8");
+    }
+
+    // Teste: recebedor incerto no filtro -> confirmação exata conta como segunda consulta
+    @Test
+    void whenReceiverNeedsConfirmation_thenTwoQueries() {
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s2", "r2", ts);
+
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s2")).thenReturn(Optional.empty());
+        when(knownReceiverIndex.knownInMemory("r2")).thenReturn(null);
+        when(knownReceiverIndex.confirmExact("r2")).thenReturn(true);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertNull(ctx.lastSeen());
+        assertTrue(ctx.receiverKnown());
+        assertTrue(ctx.receiverKnown());
+        assertEquals(2, ctx.dbQueries());
+        riskContextLoader.finish(ctx, RiskReason.APPROVED);
+        assertEquals(1, riskContextLoader.stats().loads());
+        assertEquals(2.0, riskContextLoader.stats().avgDbQueries());
+    }
+
+    // Teste: em fan-out as duas consultas partem no load, em paralelo
+    @Test
+    void whenFanOut_thenLookupsStartEagerly() {
+        ReflectionTestUtils.setField(riskContextLoader, "fanOut", true);
+        ReflectionTestUtils.setField(riskContextLoader, "lookupTimeoutMs", 1_000L);
+        Transaction tx = new Transaction(new BigDecimal("1500.00"), "s5", "r5", ts);
+        tx.setChannel("APP");
+
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s5")).thenReturn(view("s5", "dev-5", ts.minusMinutes(3)));
+        when(knownReceiverIndex.knownInMemory("r5")).thenReturn(null);
+        when(knownReceiverIndex.confirmExact("r5")).thenReturn(true);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertEquals(2, ctx.dbQueries());
+        assertEquals("dev-5", ctx.lastSeen().deviceId());
+        assertTrue(ctx.receiverKnown());
+        verify(knownReceiverIndex, timeout(1_000)).confirmExact("r5");
+    }
+
+    // Teste: consulta lenta além do prazo -> LookupTimeoutException na leitura do atributo
+    @Test
+    void whenFanOutLookupIsSlow_thenTimeout() {
+        ReflectionTestUtils.setField(riskContextLoader, "fanOut", true);
+        ReflectionTestUtils.setField(riskContextLoader, "lookupTimeoutMs", 20L);
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s6", "r6", ts);
+        tx.setChannel("APP");
+
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s6")).thenAnswer(i -> {
+            Thread.sleep(2_000);
+            return Optional.empty();
+        });
+        when(knownReceiverIndex.knownInMemory("r6")).thenReturn(Boolean.TRUE);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertTrue(ctx.receiverKnown());
+        assertThrows(LookupTimeoutException.class, ctx::lastSeen);
+    }
+
+    // Teste: segunda leitura da mesma conta vem do LastSeenCache, sem consulta
+    @Test
+    void whenLastSeenCached_thenNoQuery() {
+        Transaction first = new Transaction(new BigDecimal("10.00"), "s7", "r7", ts);
+        Transaction second = new Transaction(new BigDecimal("10.00"), "s7", "r7", ts.plusMinutes(1));
+        when(transactionRepository.findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s7")).thenReturn(view("s7", "dev-7", ts.minusMinutes(3)));
+
+        assertEquals("dev-7", riskContextLoader.load(first).lastSeen().deviceId());
+        RiskContext ctx = riskContextLoader.load(second);
+
+        assertEquals("dev-7", ctx.lastSeen().deviceId());
+        assertEquals(0, ctx.dbQueries());
+        verify(transactionRepository, times(1)).findLastSeenFirstBySenderAccountIdOrderByTimestampDesc("s7");
+    }
+
+    // Teste: contas por dispositivo/IP vêm do índice em memória, sem consulta
+    @Test
+    void whenDeviceSharedAcrossAccounts_thenCountedInMemory() {
+        sharedEntityIndex.record("a1", "10.0.0.1", "dev-x", ts.minusMinutes(20));
+        sharedEntityIndex.record("a2", "10.0.0.2", "dev-x", ts.minusMinutes(10));
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s8", "r8", ts);
+        tx.setDeviceId("dev-x");
+        tx.setIpAddress("10.0.0.1");
+
+        when(knownReceiverIndex.knownInMemory("r8")).thenReturn(Boolean.TRUE);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertEquals(3, ctx.sharedDeviceAccounts());
+        assertEquals(2, ctx.sharedIpAccounts());
+        // Só a última transação do remetente; dispositivo/IP não somam consultas
+        assertEquals(1, ctx.dbQueries());
+    }
+
+    // Teste: limites do canal definem as janelas de velocidade e seguem no contexto para as regras
+    @Test
+    void whenChannelOverridden_thenWindowsAndThresholdsFollowIt() {
+        RiskThresholds.ThresholdOverride pix = new RiskThresholds.ThresholdOverride("PIX", null, null, null, null, null, null,
+                10, 5, 30, null, null, null, null);
+        doReturn(new ThresholdTable(2, "teste", RiskThresholds.DEFAULTS, List.of(pix))).when(thresholdsRegistry).current();
+        Transaction tx = new Transaction(new BigDecimal("10.00"), "s9", "r9", ts);
+        tx.setChannel("PIX");
+        when(velocityEngine.countSince("s9", ts.minusMinutes(10))).thenReturn(4);
+        when(velocityEngine.distinctReceiversSince("s9", ts.minusMinutes(30), "r9")).thenReturn(2);
+
+        RiskContext ctx = riskContextLoader.load(tx);
+
+        assertEquals(4, ctx.recentCount());
+        assertEquals(2, ctx.distinctReceivers());
+        assertEquals(5, ctx.thresholds().panicMaxTransactions());
+        assertEquals(RiskThresholds.DEFAULTS.highAmountLimit(), ctx.thresholds().highAmountLimit());
+    }
+}
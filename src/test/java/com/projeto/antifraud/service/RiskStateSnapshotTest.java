@@ -0,0 +1,150 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.repository.RiskStateEventView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para RiskStateSnapshot e a restauração do estado.
+  - Objetivo: o snapshot gravado em arquivo volta idêntico, arquivos
+    corrompidos ou de outro banco são ignorados e a reaplicação após o
+    snapshot não conta a mesma transação duas vezes.
+*/
+class RiskStateSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static final long EPOCH = 0x5EED_CAFEL;
+
+    private final LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+    private final ShardedAnalysisExecutor shards = new ShardedAnalysisExecutor(2, 64);
+
+    private VelocityEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = newEngine();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.shutdown();
+    }
+
+    private VelocityEngine newEngine() {
+        VelocityEngine e = new VelocityEngine();
+        ReflectionTestUtils.setField(e, "shardedAnalysisExecutor", shards);
+        return e;
+    }
+
+    private RiskStateSnapshot snapshotOf(VelocityEngine source, LastSeenCache cache, SharedEntityIndex shared, long hwm) {
+        return new RiskStateSnapshot(System.currentTimeMillis(), EPOCH, hwm, source.export(), cache.export(),
+                shared.exportDevices(), shared.exportIps(), new long[] {1L, 0L, -1L});
+    }
+
+    // Teste: gravar e ler devolve o mesmo estado
+    @Test
+    void writeAndRead_roundTrip() {
+        engine.record("s1", "r1", ts.minusMinutes(3));
+        engine.record("s1", null, ts.minusMinutes(2));
+        LastSeenCache cache = new LastSeenCache(100, 60);
+        cache.record("s1", new LastSeen("APP", "dev-1", "BR", ts.minusMinutes(2)));
+        SharedEntityIndex shared = new SharedEntityIndex(60);
+        shared.record("s1", "1.1.1.1", "dev-1", ts.minusMinutes(2));
+        Path file = dir.resolve("state.snapshot");
+
+        snapshotOf(engine, cache, shared, 42L).write(file);
+        RiskStateSnapshot read = RiskStateSnapshot.read(file);
+
+        assertNotNull(read);
+        assertEquals(EPOCH, read.databaseEpoch());
+        assertEquals(42L, read.highWaterMark());
+        assertEquals(1, read.velocity().size());
+        assertEquals(2, read.velocity().get(0).times().length);
+        assertNull(read.velocity().get(0).receivers()[1]);
+        assertEquals("dev-1", read.lastSeen().get(0).lastSeen().deviceId());
+        assertEquals(ts.minusMinutes(2), read.lastSeen().get(0).lastSeen().timestamp());
+        assertEquals("dev-1", read.devices().get(0).key());
+        assertEquals("1.1.1.1", read.ips().get(0).key());
+        assertEquals(-1L, read.receiverFilter()[2]);
+    }
+
+    // Teste: restaurar pelos shards reproduz as consultas de velocidade
+    @Test
+    void restore_rebuildsVelocityWindows() {
+        engine.record("s2", "r1", ts.minusMinutes(4));
+        engine.record("s2", "r2", ts.minusMinutes(1));
+        engine.record("s3", "r3", ts.minusMinutes(1));
+
+        VelocityEngine restored = newEngine();
+        restored.restore(engine.export());
+
+        assertEquals(2, restored.countSince("s2", ts.minusMinutes(5)));
+        assertEquals(1, restored.countSince("s3", ts.minusMinutes(5)));
+        assertEquals(2, restored.trackedAccounts());
+    }
+
+    // Teste: reaplicar um evento já presente no snapshot não o conta de novo
+    @Test
+    void replay_isIdempotent() {
+        LocalDateTime recent = LocalDateTime.now().minusMinutes(2);
+        engine.record("s4", "r1", recent);
+        VelocityEngine restored = newEngine();
+        restored.restore(engine.export());
+
+        restored.replay(List.of(event(10L, "s4", "r1", recent), event(11L, "s4", "r2", recent.plusSeconds(30))));
+
+        assertEquals(2, restored.countSince("s4", recent.minusMinutes(1)));
+    }
+
+    // Teste: arquivo corrompido ou de outra versão é ignorado
+    @Test
+    void corruptedFile_isIgnored() throws IOException {
+        Path file = dir.resolve("state.snapshot");
+        snapshotOf(engine, new LastSeenCache(100, 60), new SharedEntityIndex(60), 7L).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertNull(RiskStateSnapshot.read(file));
+        assertNull(RiskStateSnapshot.read(dir.resolve("inexistente.snapshot")));
+    }
+
+    // Teste: snapshot de outro banco (ex.: H2 recriado) ou com marca d'água além do banco é descartado
+    @Test
+    void snapshotFromAnotherDatabase_isDiscarded() {
+        RiskStateSnapshotter snapshotter = new RiskStateSnapshotter();
+        ReflectionTestUtils.setField(snapshotter, "maxAgeMinutes", 60L);
+        RiskStateSnapshot snapshot = snapshotOf(engine, new LastSeenCache(100, 60), new SharedEntityIndex(60), 500L);
+
+        assertSame(snapshot, snapshotter.usable(snapshot, EPOCH, 900L));
+        assertNull(snapshotter.usable(snapshot, EPOCH + 1, 900L));
+        assertNull(snapshotter.usable(snapshot, EPOCH, null));
+        assertNull(snapshotter.usable(snapshot, EPOCH, 120L));
+    }
+
+    private static RiskStateEventView event(Long id, String sender, String receiver, LocalDateTime timestamp) {
+        return new RiskStateEventView() {
+            public Long getId() { return id; }
+            public String getSenderAccountId() { return sender; }
+            public String getReceiverAccountId() { return receiver; }
+            public String getChannel() { return "APP"; }
+            public String getDeviceId() { return "dev-1"; }
+            public String getGeoLocation() { return "BR"; }
+            public String getIpAddress() { return "1.1.1.1"; }
+            public LocalDateTime getTimestamp() { return timestamp; }
+        };
+    }
+}
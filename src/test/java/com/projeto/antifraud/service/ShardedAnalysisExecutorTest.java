@@ -0,0 +1,83 @@
+package com.projeto.antifraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para ShardedAnalysisExecutor.
+  - Objetivo: uma conta sempre na mesma thread e em ordem, broadcast em
+    todos os shards, falhas propagadas e chamadas reentrantes sem deadlock.
+*/
+class ShardedAnalysisExecutorTest {
+
+    private final ShardedAnalysisExecutor executor = new ShardedAnalysisExecutor(4, 64);
+
+    // Teste: tarefas da mesma conta rodam na mesma thread, em ordem de envio
+    @Test
+    void sameSender_runsOnOneThreadInOrder() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> order = new ArrayList<>();   // sem lock: single-writer
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            futures.add(executor.submit("acct-1", () -> {
+                threads.add(Thread.currentThread().getName());
+                order.add(n);
+                return null;
+            }));
+        }
+        executor.awaitAll(futures);
+
+        assertEquals(1, threads.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    // Teste: broadcast executa uma vez em cada shard
+    @Test
+    void broadcast_runsOnEveryShard() {
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger runs = new AtomicInteger();
+
+        executor.broadcast(shard -> {
+            seen.add(shard);
+            runs.incrementAndGet();
+        });
+
+        assertEquals(Set.of(0, 1, 2, 3), seen);
+        assertEquals(4, runs.get());
+    }
+
+    // Teste: exceção da tarefa chega ao chamador com o tipo original
+    @Test
+    void failure_isRethrown() {
+        assertThrows(IllegalStateException.class, () -> executor.call("acct-2", () -> {
+            throw new IllegalStateException("falha");
+        }));
+        assertEquals("ok", executor.call("acct-2", () -> "ok"));
+    }
+
+    // Teste: chamada para o próprio shard, de dentro dele, roda direto
+    @Test
+    void reentrantCall_runsInline() {
+        String out = executor.call("acct-3", () -> executor.call("acct-3", () -> Thread.currentThread().getName()));
+
+        assertTrue(out.startsWith("analysis-shard-"));
+    }
+
+    // Teste: conta nula vai para um shard fixo
+    @Test
+    void nullSender_mapsToShardZero() {
+        assertEquals(0, executor.shardOf(null));
+        assertEquals(executor.shardOf("acct-9"), executor.shardOf("acct-9"));
+    }
+}
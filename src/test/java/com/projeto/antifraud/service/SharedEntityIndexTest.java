@@ -0,0 +1,62 @@
+package com.projeto.antifraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para SharedEntityIndex.
+  - Objetivo: contas distintas por IP/dispositivo dentro da janela, sem
+    contar a mesma conta duas vezes e descartando usos antigos.
+*/
+class SharedEntityIndexTest {
+
+    private final SharedEntityIndex index = new SharedEntityIndex(60);
+    private final LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+
+    // Teste: a mesma conta usando o dispositivo várias vezes conta uma vez
+    @Test
+    void sameAccountIsCountedOnce() {
+        index.record("a1", "1.1.1.1", "dev-1", ts.minusMinutes(30));
+        index.record("a1", "1.1.1.1", "dev-1", ts.minusMinutes(20));
+
+        assertEquals(1, index.accountsOnDevice("dev-1", "a1", ts));
+        assertEquals(2, index.accountsOnDevice("dev-1", "a2", ts));
+    }
+
+    // Teste: contas distintas no mesmo IP e dispositivo são somadas, incluindo o remetente atual
+    @Test
+    void distinctAccountsAreCounted() {
+        index.record("a1", "1.1.1.1", "dev-1", ts.minusMinutes(30));
+        index.record("a2", "1.1.1.1", "dev-2", ts.minusMinutes(20));
+        index.record("a3", "1.1.1.1", "dev-1", ts.minusMinutes(10));
+
+        assertEquals(4, index.accountsOnIp("1.1.1.1", "a4", ts));
+        assertEquals(3, index.accountsOnDevice("dev-1", "a4", ts));
+        assertEquals(1, index.accountsOnDevice("dev-novo", "a4", ts));
+        assertEquals(0, index.accountsOnDevice(null, "a4", ts));
+    }
+
+    // Teste: usos fora da janela de 1 hora não contam
+    @Test
+    void usesOutsideWindowAreIgnored() {
+        index.record("a1", "1.1.1.1", "dev-1", ts.minusMinutes(90));
+        index.record("a2", "1.1.1.1", "dev-1", ts.minusMinutes(10));
+
+        assertEquals(2, index.accountsOnDevice("dev-1", "a3", ts));
+    }
+
+    // Teste: acima do limite por entidade a contagem satura sem crescer
+    @Test
+    void accountsPerEntityAreCapped() {
+        for (int i = 0; i < SharedEntityIndex.MAX_ACCOUNTS + 10; i++) {
+            index.record("a" + i, null, "dev-1", ts.minusMinutes(30).plusSeconds(i));
+        }
+
+        assertEquals(SharedEntityIndex.MAX_ACCOUNTS, index.accountsOnDevice("dev-1", "a" + (SharedEntityIndex.MAX_ACCOUNTS + 9), ts));
+        assertEquals(1, index.trackedDevices());
+        assertEquals(0, index.trackedIps());
+    }
+}
@@ -0,0 +1,127 @@
+package com.projeto.antifraud.service;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para StreamAnalyzer.
+  - Objetivo: veredictos na ordem de entrada, janela de análises limitada,
+    transações do mesmo remetente em sequência e erro por linha sem
+    interromper o fluxo.
+  - Abordagem: RiskAnalysisService mockado (com atraso controlado); JSON real.
+*/
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StreamAnalyzerTest {
+
+    @Mock
+    private RiskAnalysisService riskAnalysisService;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @InjectMocks
+    private StreamAnalyzer streamAnalyzer;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(streamAnalyzer, "maxInFlight", 4);
+        // Remetentes "slow*" demoram; "fail" lança erro; os demais são aprovados
+        when(riskAnalysisService.analyzeTransaction(any())).thenAnswer(i -> {
+            Transaction t = i.getArgument(0);
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                if (t.getSenderAccountId().startsWith("slow")) {
+                    Thread.sleep(50);
+                }
+                if (t.getSenderAccountId().equals("fail")) {
+                    throw new IllegalStateException("falha simulada");
+                }
+                t.setRiskCode(RiskReason.APPROVED);
+                t.setRiskReason(t.getSenderAccountId());
+                return t;
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    private String line(String sender) {
+        return "{\"amount\":10.00,\"senderAccountId\":\"" + sender + "\",\"receiverAccountId\":\"r1\","
+                + "\"timestamp\":\"2025-11-27T12:00:00\"}\n";
+    }
+
+    private String[] run(String body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamAnalyzer.analyze(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+
+    // Teste: primeira linha lenta não altera a ordem da saída
+    @Test
+    void verdictsFollowInputOrder() {
+        String[] out = run(line("slow-a") + line("b") + line("c"));
+
+        assertEquals(3, out.length);
+        assertTrue(out[0].contains("\"reason\":\"slow-a\""));
+        assertTrue(out[1].contains("\"reason\":\"b\""));
+        assertTrue(out[2].contains("\"reason\":\"c\""));
+    }
+
+    // Teste: nunca mais análises simultâneas que a janela
+    @Test
+    void inFlightIsBounded() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            body.append(line("slow-" + i));
+        }
+
+        assertEquals(40, run(body.toString()).length);
+        assertTrue(maxActive.get() <= 4, "máximo simultâneo: " + maxActive.get());
+    }
+
+    // Teste: mesmo remetente é analisado em sequência, mesmo com a janela livre
+    @Test
+    void sameSenderIsSequential() {
+        String[] out = run(line("slow-x") + line("slow-x") + line("slow-x"));
+
+        assertEquals(3, out.length);
+        assertEquals(1, maxActive.get());
+    }
+
+    // Teste: falha em uma linha vira linha de erro e o fluxo continua
+    @Test
+    void failedLineReportsErrorAndContinues() {
+        String[] out = run(line("a") + line("fail") + line("c"));
+
+        assertEquals(3, out.length);
+        assertTrue(out[1].contains("\"line\":2"));
+        assertTrue(out[1].contains("falha simulada"));
+        assertTrue(out[2].contains("\"reason\":\"c\""));
+        verify(riskAnalysisService, times(3)).analyzeTransaction(any());
+    }
+}
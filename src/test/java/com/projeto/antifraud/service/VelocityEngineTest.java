@@ -0,0 +1,71 @@
+package com.projeto.antifraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para VelocityEngine.
+  - Objetivo: garantir a mesma semântica das consultas "timestamp após T"
+    que o motor substitui (limite estrito, recebedores distintos, retenção).
+*/
+class VelocityEngineTest {
+
+    private final VelocityEngine engine = new VelocityEngine();
+    private final LocalDateTime base = LocalDateTime.of(2025,11,27,12,0);
+
+    // Teste: contagem considera apenas eventos estritamente após o limite
+    @Test
+    void countSince_isStrictlyAfter() {
+        engine.record("s1", "r1", base.minusMinutes(5));
+        engine.record("s1", "r2", base.minusMinutes(4));
+        engine.record("s1", "r3", base.minusMinutes(1));
+
+        assertEquals(2, engine.countSince("s1", base.minusMinutes(5)));
+        assertEquals(3, engine.countSince("s1", base.minusMinutes(6)));
+        assertEquals(0, engine.countSince("other", base.minusMinutes(6)));
+    }
+
+    // Teste: eventos fora de ordem são posicionados corretamente
+    @Test
+    void outOfOrderEvents_areKeptSorted() {
+        engine.record("s2", "r1", base.minusMinutes(1));
+        engine.record("s2", "r2", base.minusMinutes(10));
+        engine.record("s2", "r3", base.minusMinutes(3));
+
+        assertEquals(2, engine.countSince("s2", base.minusMinutes(5)));
+    }
+
+    // Teste: recebedores distintos incluem o recebedor atual
+    @Test
+    void distinctReceivers_includeCurrentReceiver() {
+        engine.record("s3", "r1", base.minusMinutes(50));
+        engine.record("s3", "r1", base.minusMinutes(40));
+        engine.record("s3", "r2", base.minusMinutes(30));
+
+        assertEquals(2, engine.distinctReceiversSince("s3", base.minusHours(1), "r2"));
+        assertEquals(3, engine.distinctReceiversSince("s3", base.minusHours(1), "r3"));
+        assertEquals(1, engine.distinctReceiversSince("s3", base.minusMinutes(35), null));
+    }
+
+    // Teste: eventos além da retenção são descartados quando chegam eventos novos
+    @Test
+    void eventsOlderThanRetention_areDropped() {
+        engine.record("s4", "r1", base.minusHours(3));
+        engine.record("s4", "r2", base);
+
+        assertEquals(1, engine.countSince("s4", base.minusYears(1)));
+    }
+
+    // Teste: o anel respeita a capacidade máxima
+    @Test
+    void ring_isBoundedByCapacity() {
+        for (int i = 0; i < VelocityEngine.CAPACITY + 10; i++) {
+            engine.record("s5", "r" + i, base.plusSeconds(i));
+        }
+
+        assertEquals(VelocityEngine.CAPACITY, engine.countSince("s5", base.minusMinutes(1)));
+    }
+}
@@ -0,0 +1,197 @@
+package com.projeto.antifraud.service.backtest;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.repository.ReplayRowView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import com.projeto.antifraud.service.RiskAnalysisService;
+import com.projeto.antifraud.service.rule.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para BacktestRunner.
+  - Objetivo: reprocessar as linhas gravadas por páginas keyset, com estado
+    por remetente entre páginas e grupos em paralelo, e comparar com o
+    veredito armazenado sem gravar nada.
+  - Abordagem: regras reais; o repositório é mockado e devolve as páginas
+    conforme a última linha lida.
+*/
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BacktestRunnerTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Spy
+    private RuleEngine ruleEngine = new RuleEngine(List.of(
+            new AuthAttemptsRule(), new PanicModeRule(), new SharedEntityRule(), new ChannelChangeRule(), new DeviceChangeRule(),
+            new GeoChangeRule(), new MultipleReceiversRule(), new HighAmountRule(), new NewReceiverRule()), "");
+
+    @Spy
+    private ScoringPolicy scoringPolicy = new ScoringPolicy("", 40, 80, 0);
+
+    @Spy
+    private RiskThresholdsRegistry thresholdsRegistry = new RiskThresholdsRegistry();
+
+    @InjectMocks
+    private BacktestRunner backtestRunner;
+
+    private final LocalDateTime ts = LocalDateTime.of(2025,11,27,12,0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(backtestRunner, "defaultMode", RiskAnalysisService.Mode.FIRST_MATCH);
+        ReflectionTestUtils.setField(backtestRunner, "sharedEntityWindowMinutes", 60L);
+        ReflectionTestUtils.setField(backtestRunner, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(backtestRunner, "parallelism", 2);
+        ReflectionTestUtils.setField(backtestRunner, "maxSenders", 1_000L);
+        ReflectionTestUtils.setField(backtestRunner, "expectedReceivers", 1_000L);
+    }
+
+    // Helper: linha gravada com dispositivo/IP próprios do remetente e o veredito armazenado
+    private record Row(Long id, BigDecimal amount, String senderAccountId, String receiverAccountId, String channel,
+                       String deviceId, String ipAddress, String geoLocation, Integer authAttempts,
+                       LocalDateTime timestamp, Boolean isSuspicious, String riskReason) implements ReplayRowView {
+
+        public Long getId() { return id; }
+        public BigDecimal getAmount() { return amount; }
+        public String getSenderAccountId() { return senderAccountId; }
+        public String getReceiverAccountId() { return receiverAccountId; }
+        public String getChannel() { return channel; }
+        public String getDeviceId() { return deviceId; }
+        public String getIpAddress() { return ipAddress; }
+        public String getGeoLocation() { return geoLocation; }
+        public Integer getAuthAttempts() { return authAttempts; }
+        public LocalDateTime getTimestamp() { return timestamp; }
+        public Boolean getIsSuspicious() { return isSuspicious; }
+        public String getRiskReason() { return riskReason; }
+    }
+
+    private Row row(long id, String sender, String device, LocalDateTime at, RiskReason stored) {
+        return new Row(id, new BigDecimal("10.00"), sender, "r-" + sender, "APP", device, "ip-" + sender, "BR", 0,
+                at, stored != RiskReason.APPROVED, stored.message());
+    }
+
+    // Helper: o repositório devolve as páginas na ordem, pela última linha lida
+    private void pages(List<ReplayRowView> rows, int pageSize) {
+        long afterId = Long.MIN_VALUE;
+        for (int i = 0; i < rows.size(); i += pageSize) {
+            List<ReplayRowView> page = rows.subList(i, Math.min(rows.size(), i + pageSize));
+            when(transactionRepository.findReplayPage(any(), eq(afterId), any(), any())).thenReturn(page);
+            afterId = page.get(page.size() - 1).getId();
+        }
+        when(transactionRepository.findReplayPage(any(), eq(afterId), any(), any())).thenReturn(List.of());
+    }
+
+    // Teste: a última transação do remetente atravessa páginas; diferenças são classificadas e nada é gravado
+    @Test
+    void comparesReplayedVerdictsAcrossPages() {
+        pages(List.of(
+                row(1, "a1", "dev-1", ts, RiskReason.APPROVED),
+                row(2, "a2", "dev-a2", ts.plusMinutes(1), RiskReason.HIGH_AMOUNT),
+                row(3, "a1", "dev-2", ts.plusMinutes(2), RiskReason.APPROVED),
+                row(4, "a3", "dev-a3", ts.plusMinutes(3), RiskReason.APPROVED)), 2);
+
+        BacktestReport report = backtestRunner.run(null, null, null, null);
+
+        assertEquals(4, report.transactions());
+        assertEquals(2, report.pages());
+        assertEquals(1, report.storedFlagged());
+        assertEquals(1, report.replayFlagged());
+        assertEquals(1, report.diff().newlyFlagged());
+        assertEquals(1, report.diff().cleared());
+        assertEquals(2, report.diff().unchanged());
+        assertEquals(1L, report.diff().transitions().get("APPROVED->DEVICE_CHANGE"));
+        assertEquals(1L, report.diff().transitions().get("HIGH_AMOUNT->APPROVED"));
+        assertEquals(List.of(2L, 3L), report.diff().sampleTransactionIds());
+        assertEquals(1L, report.reasons().get(RiskReason.DEVICE_CHANGE));
+        verify(transactionRepository, never()).save(any());
+        verify(transactionRepository, never()).findAll();
+    }
+
+    // Teste: todas as regras rodam em toda transação; o veredito é o da maior prioridade
+    @Test
+    void countsHitsOfEveryRuleIndependently() {
+        Row first = row(1, "a1", "dev-1", ts, RiskReason.APPROVED);
+        Row second = new Row(2L, new BigDecimal("10.00"), "a1", "r-a1", "PIX", "dev-2", "ip-a1", "BR", 5,
+                ts.plusMinutes(1), true, RiskReason.AUTH_ATTEMPTS.message());
+        pages(List.of(first, second), 2);
+
+        BacktestReport report = backtestRunner.run(null, null, null, 10);
+
+        assertEquals(0, report.diff().newlyFlagged() + report.diff().cleared() + report.diff().reasonChanged());
+        for (BacktestReport.RuleRate rate : report.rules()) {
+            long expected = List.of("auth-attempts", "channel-change", "device-change").contains(rate.name()) ? 1 : 0;
+            assertEquals(expected, rate.hits(), rate.name());
+        }
+        assertEquals(0.5, report.rules().get(0).hitRate(), 1e-9);
+    }
+
+    // Teste: muitos remetentes avaliados em paralelo mantêm a janela de velocidade de cada conta
+    @Test
+    void velocityIsTrackedPerSenderInParallel() {
+        List<ReplayRowView> rows = new ArrayList<>();
+        long id = 1;
+        for (int k = 0; k < 5; k++) {
+            for (int s = 0; s < 200; s++) {
+                rows.add(row(id++, "a" + s, "dev-a" + s, ts.plusSeconds(k * 10L), RiskReason.APPROVED));
+            }
+        }
+        pages(rows, 300);
+
+        BacktestReport report = backtestRunner.run(null, null, RiskAnalysisService.Mode.FIRST_MATCH, 300);
+
+        assertEquals(1_000, report.transactions());
+        assertEquals(400L, report.reasons().get(RiskReason.PANIC_MODE));
+        assertEquals(400, report.diff().newlyFlagged());
+    }
+
+    // Teste: só a tabela quente é lida; com a retenção ligada o relatório traz o corte do arquivo
+    @Test
+    void reportsArchiveCutoffWhenRetentionIsOn() {
+        pages(List.of(row(1, "a1", "dev-1", ts, RiskReason.APPROVED)), 2);
+
+        assertNull(backtestRunner.run(null, null, null, null).archivedBefore());
+
+        ReflectionTestUtils.setField(backtestRunner, "retentionEnabled", true);
+        ReflectionTestUtils.setField(backtestRunner, "retentionHotDays", 30L);
+        LocalDateTime before = LocalDateTime.now().minusDays(30);
+        BacktestReport report = backtestRunner.run(null, null, null, null);
+
+        assertFalse(report.archivedBefore().isBefore(before));
+        assertTrue(report.archivedBefore().isBefore(LocalDateTime.now().minusDays(29)));
+    }
+
+    // Teste: no modo de pontuação o veredito vem da faixa de pontuação
+    @Test
+    void scoringModeUsesPolicyBands() {
+        pages(List.of(
+                row(1, "a1", "dev-1", ts, RiskReason.APPROVED),
+                row(2, "a1", "dev-2", ts.plusMinutes(1), RiskReason.DEVICE_CHANGE)), 2);
+
+        BacktestReport report = backtestRunner.run(null, null, RiskAnalysisService.Mode.SCORING, 10);
+
+        // DEVICE_CHANGE sozinho (35) fica abaixo da faixa de revisão (40): aprovado
+        assertEquals("SCORING", report.mode());
+        assertEquals(0, report.replayFlagged());
+        assertEquals(1, report.diff().cleared());
+    }
+}
@@ -0,0 +1,143 @@
+package com.projeto.antifraud.service.persistence;
+
+import com.projeto.antifraud.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para TransactionJournal.
+  - Objetivo: registros não confirmados sobrevivem à reabertura do arquivo
+    e registros confirmados não são regravados, inclusive após uma recuperação.
+  - Registros gravados no banco e ainda não confirmados são regravados
+    (janela de duplicatas documentada em TransactionWriter).
+*/
+class TransactionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private Transaction tx(String sender) {
+        Transaction t = new Transaction(new BigDecimal("123.45"), sender, "r1", LocalDateTime.of(2025,11,27,12,0,1,500));
+        t.setCurrency("BRL");
+        t.setChannel("APP");
+        t.setAuthAttempts(2);
+        t.setSuspicious(true);
+        t.setRiskReason("Dispositivo diferente do último registrado para a conta.");
+        return t;
+    }
+
+    // Teste: registros pendentes são recuperados com todos os campos após reabrir
+    @Test
+    void pendingRecords_surviveReopen() {
+        Path file = dir.resolve("tx.journal");
+        try (TransactionJournal journal = new TransactionJournal(file, 64 * 1024, false)) {
+            journal.pending();
+            journal.append(tx("s1"));
+            journal.append(tx("s2"));
+        }
+
+        try (TransactionJournal reopened = new TransactionJournal(file, 64 * 1024, false)) {
+            List<Transaction> pending = reopened.pending();
+            assertEquals(2, pending.size());
+            Transaction first = pending.get(0);
+            assertEquals("s1", first.getSenderAccountId());
+            assertEquals(new BigDecimal("123.45"), first.getAmount());
+            assertEquals("BRL", first.getCurrency());
+            assertEquals(LocalDateTime.of(2025,11,27,12,0,1,500), first.getTimestamp());
+            assertEquals(Integer.valueOf(2), first.getAuthAttempts());
+            assertTrue(first.isSuspicious());
+            assertEquals("Dispositivo diferente do último registrado para a conta.", first.getRiskReason());
+            assertNull(first.getIpAddress());
+        }
+    }
+
+    // Teste: checkpoint confirma registros e o journal volta ao início quando esvazia
+    @Test
+    void checkpoint_skipsCommittedAndRewinds() {
+        Path file = dir.resolve("tx.journal");
+        try (TransactionJournal journal = new TransactionJournal(file, 64 * 1024, false)) {
+            journal.pending();
+            int first = journal.append(tx("s1"));
+            int second = journal.append(tx("s2"));
+            journal.checkpoint(first);
+            assertEquals(1, new TransactionJournal(file, 64 * 1024, false).pending().size());
+
+            journal.checkpoint(second);
+            assertEquals(0, journal.usedBytes());
+        }
+        try (TransactionJournal reopened = new TransactionJournal(file, 64 * 1024, false)) {
+            assertTrue(reopened.pending().isEmpty());
+        }
+    }
+
+    // Teste: após regravar pendências, novos registros seguem recuperáveis em uma segunda queda
+    @Test
+    void recoveredThenCrashedAgain_replaysNewRecords() {
+        Path file = dir.resolve("tx.journal");
+        try (TransactionJournal journal = new TransactionJournal(file, 64 * 1024, false)) {
+            journal.pending();
+            journal.append(tx("s1"));
+        }
+
+        try (TransactionJournal recovered = new TransactionJournal(file, 64 * 1024, false)) {
+            assertEquals(1, recovered.pending().size());
+            recovered.checkpointAll();
+            assertEquals(0, recovered.usedBytes());
+            recovered.append(tx("s2"));
+            recovered.append(tx("s3"));
+        }
+
+        try (TransactionJournal reopened = new TransactionJournal(file, 64 * 1024, false)) {
+            List<Transaction> pending = reopened.pending();
+            assertEquals(List.of("s2", "s3"), pending.stream().map(Transaction::getSenderAccountId).toList());
+            // Offset além do escrito confirma só o que existe
+            reopened.checkpoint(Integer.MAX_VALUE);
+            reopened.append(tx("s4"));
+        }
+
+        try (TransactionJournal reopened = new TransactionJournal(file, 64 * 1024, false)) {
+            List<Transaction> pending = reopened.pending();
+            assertEquals(1, pending.size());
+            assertEquals("s4", pending.get(0).getSenderAccountId());
+        }
+    }
+
+    // Teste: queda depois de gravar no banco e antes do checkpoint -> o bloco volta inteiro (pelo menos uma vez)
+    @Test
+    void crashBeforeCheckpoint_replaysWholeBlock() {
+        Path file = dir.resolve("tx.journal");
+        try (TransactionJournal journal = new TransactionJournal(file, 64 * 1024, false)) {
+            journal.pending();
+            int first = journal.append(tx("s1"));
+            journal.append(tx("s2"));
+            journal.append(tx("s3"));
+            journal.checkpoint(first);
+            // s2 e s3 gravados pelo saveAll do bloco; a queda acontece antes do checkpoint
+        }
+
+        try (TransactionJournal reopened = new TransactionJournal(file, 64 * 1024, false)) {
+            List<Transaction> pending = reopened.pending();
+            assertEquals(List.of("s2", "s3"), pending.stream().map(Transaction::getSenderAccountId).toList());
+        }
+    }
+
+    // Teste: journal cheio recusa novos registros
+    @Test
+    void full_returnsNegativeOffset() {
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("small.journal"), 256, false)) {
+            journal.pending();
+            int last = 0;
+            for (int i = 0; i < 10 && last >= 0; i++) {
+                last = journal.append(tx("s" + i));
+            }
+            assertEquals(-1, last);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.projeto.antifraud.service.retention;
+
+import com.projeto.antifraud.entity.AccountRollup;
+import com.projeto.antifraud.entity.ReceiverRollup;
+import com.projeto.antifraud.repository.AccountRollupRepository;
+import com.projeto.antifraud.repository.ReceiverRollupRepository;
+import com.projeto.antifraud.repository.ReplayRowView;
+import com.projeto.antifraud.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+  Testes unitários para RetentionCompactor.
+  - Objetivo: cada bloco antigo é somado aos resumos existentes, copiado
+    para o arquivo e removido da tabela quente; a compactação para quando
+    um bloco vem incompleto.
+  - Abordagem: repositórios e JDBC mockados; o TransactionTemplate executa
+    o bloco diretamente.
+*/
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RetentionCompactorTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRollupRepository accountRollupRepository;
+
+    @Mock
+    private ReceiverRollupRepository receiverRollupRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private RetentionCompactor retentionCompactor;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2025,11,1,0,0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(retentionCompactor, "chunkSize", 2);
+        when(transactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+    }
+
+    // Helper: linha antiga gravada
+    private record Row(Long id, String senderAccountId, String receiverAccountId, String deviceId,
+                       LocalDateTime timestamp, Boolean isSuspicious) implements ReplayRowView {
+
+        public Long getId() { return id; }
+        public BigDecimal getAmount() { return new BigDecimal("10.00"); }
+        public String getSenderAccountId() { return senderAccountId; }
+        public String getReceiverAccountId() { return receiverAccountId; }
+        public String getChannel() { return "APP"; }
+        public String getDeviceId() { return deviceId; }
+        public String getIpAddress() { return "1.1.1.1"; }
+        public String getGeoLocation() { return "BR"; }
+        public Integer getAuthAttempts() { return 0; }
+        public LocalDateTime getTimestamp() { return timestamp; }
+        public Boolean getIsSuspicious() { return isSuspicious; }
+        public String getRiskReason() { return null; }
+    }
+
+    // Teste: blocos são arquivados até vir um bloco incompleto; cada bloco copia e remove os mesmos ids
+    @Test
+    void movesChunksUntilExhausted() {
+        when(transactionRepository.findRollupRowsByTimestampBeforeOrderByTimestampAscIdAsc(eq(cutoff), any()))
+                .thenReturn(List.of(new Row(1L, "a1", "r1", "dev-1", cutoff.minusDays(3), false),
+                                    new Row(2L, "a2", "r1", "dev-2", cutoff.minusDays(2), true)))
+                .thenReturn(List.of(new Row(3L, "a1", "r2", "dev-3", cutoff.minusDays(1), false)));
+
+        assertEquals(3, retentionCompactor.compact(cutoff));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, ?>> params = ArgumentCaptor.forClass(Map.class);
+        verify(jdbcTemplate, times(4)).update(sql.capture(), params.capture());
+        assertTrue(sql.getAllValues().get(0).startsWith("insert into transactions_archive (" + RetentionCompactor.ARCHIVE_COLUMNS
+                + ") select " + RetentionCompactor.ARCHIVE_COLUMNS + " from transactions"));
+        assertTrue(sql.getAllValues().get(1).startsWith("delete from transactions"));
+        assertEquals(List.of(1L, 2L), params.getAllValues().get(0).get("ids"));
+        assertEquals(List.of(1L, 2L), params.getAllValues().get(1).get("ids"));
+        assertEquals(List.of(3L), params.getAllValues().get(3).get("ids"));
+    }
+
+    // Teste: o bloco é somado aos resumos já existentes; a transação mais recente define a última conhecida
+    @Test
+    void mergesChunkIntoExistingRollups() {
+        AccountRollup existing = new AccountRollup("a1");
+        existing.record(cutoff.minusDays(10), new BigDecimal("5.00"), false, "WEB", "dev-0", "BR");
+        when(accountRollupRepository.findAllById(any())).thenReturn(List.of(existing));
+        when(transactionRepository.findRollupRowsByTimestampBeforeOrderByTimestampAscIdAsc(eq(cutoff), any()))
+                .thenReturn(List.of(new Row(1L, "a1", "r1", "dev-1", cutoff.minusDays(3), true),
+                                    new Row(2L, "a2", "r1", "dev-2", cutoff.minusDays(2), false)))
+                .thenReturn(List.of());
+
+        retentionCompactor.compact(cutoff);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<AccountRollup>> accounts = ArgumentCaptor.forClass(Iterable.class);
+        verify(accountRollupRepository).saveAll(accounts.capture());
+        List<AccountRollup> saved = new ArrayList<>();
+        accounts.getValue().forEach(saved::add);
+        AccountRollup a1 = saved.stream().filter(a -> a.getSenderAccountId().equals("a1")).findFirst().orElseThrow();
+        assertEquals(2, a1.getTransactionCount());
+        assertEquals(1, a1.getSuspiciousCount());
+        assertEquals(new BigDecimal("15.00"), a1.getTotalAmount());
+        assertEquals(cutoff.minusDays(10), a1.getFirstSeen());
+        assertEquals(cutoff.minusDays(3), a1.getLastSeen());
+        assertEquals("dev-1", a1.getLastDeviceId());
+        assertEquals(2, saved.size());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<ReceiverRollup>> receivers = ArgumentCaptor.forClass(Iterable.class);
+        verify(receiverRollupRepository).saveAll(receivers.capture());
+        ReceiverRollup r1 = receivers.getValue().iterator().next();
+        assertEquals("r1", r1.getReceiverAccountId());
+        assertEquals(2, r1.getTransactionCount());
+        assertEquals(cutoff.minusDays(3), r1.getFirstSeen());
+        assertEquals(cutoff.minusDays(2), r1.getLastSeen());
+    }
+}
@@ -0,0 +1,135 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.RiskContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para RiskThresholdsRegistry / ThresholdTable.
+  - Objetivo: padrões sem arquivo, precedência padrões < canal < segmento <
+    canal + segmento (canal sem distinção de maiúsculas), e arquivo inválido
+    mantendo a versão anterior.
+  - Abordagem: registro real com JsonMapper, arquivo em diretório temporário.
+*/
+class RiskThresholdsRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private RiskThresholdsRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("risk-thresholds.json");
+        registry = new RiskThresholdsRegistry();
+        ReflectionTestUtils.setField(registry, "objectMapper", JsonMapper.builder().build());
+        ReflectionTestUtils.setField(registry, "path", file.toString());
+    }
+
+    // Teste: sem arquivo valem os limites históricos, para qualquer canal/segmento
+    @Test
+    void missingFileUsesDefaults() {
+        registry.init();
+
+        assertEquals(RiskThresholds.DEFAULTS, registry.current().resolve("PIX", "PJ"));
+        assertEquals(RiskThresholds.DEFAULTS, registry.current().resolve(null, null));
+        assertNull(registry.info().lastError());
+    }
+
+    // Teste: o override mais específico vence; canal/segmento desconhecidos caem na linha "*"
+    @Test
+    void resolvesOverridesBySpecificity() throws Exception {
+        Files.writeString(file, """
+                { "defaults": { "highAmountLimit": 3000.00 },
+                  "overrides": [
+                    { "channel": "PIX", "segment": "PF", "maxDistinctReceivers": 7 },
+                    { "segment": "PJ", "highAmountLimit": 20000.00, "maxDistinctReceivers": 10 },
+                    { "channel": "Pix", "highAmountLimit": 1500.00, "maxDistinctReceivers": 5 } ] }
+                """);
+        registry.init();
+        ThresholdTable table = registry.current();
+
+        assertEquals(new BigDecimal("3000.00"), table.resolve("APP", null).highAmountLimit());
+        assertEquals(3, table.resolve("APP", "PF").maxDistinctReceivers());
+        assertEquals(new BigDecimal("1500.00"), table.resolve("PIX", null).highAmountLimit());
+        assertEquals(table.resolve("PIX", "PF"), table.resolve("pix", "PF"));
+        assertEquals(5, table.resolve("PIX", "OUTRO").maxDistinctReceivers());
+        assertEquals(new BigDecimal("20000.00"), table.resolve("PIX", "PJ").highAmountLimit());
+        assertEquals(10, table.resolve("PIX", "PJ").maxDistinctReceivers());
+        assertEquals(7, table.resolve("PIX", "PF").maxDistinctReceivers());
+        assertEquals(new BigDecimal("1500.00"), table.resolve("PIX", "PF").highAmountLimit());
+        assertEquals(RiskThresholds.DEFAULTS.maxAuthAttempts(), table.resolve("PIX", "PF").maxAuthAttempts());
+
+        // A regra lê o limite resolvido no contexto
+        Transaction tx = new Transaction(new BigDecimal("2000.00"), "s1", "r1", LocalDateTime.of(2025,11,27,12,0));
+        tx.setChannel("PIX");
+        RiskContext ctx = RiskContext.of(0, 1, null, true).withThresholds(registry.resolve(tx));
+        assertEquals(RiskReason.HIGH_AMOUNT, new HighAmountRule().evaluate(tx, ctx));
+    }
+
+    // Teste: arquivo inválido (valor fora da faixa ou campo desconhecido) não troca a versão atual
+    @Test
+    void invalidFileKeepsPreviousVersion() throws Exception {
+        Files.writeString(file, """
+                { "overrides": [ { "channel": "PIX", "panicMaxTransactions": 5 } ] }
+                """);
+        registry.init();
+        long version = registry.current().version();
+
+        Files.writeString(file, """
+                { "overrides": [ { "channel": "PIX", "panicWindowMinutes": 600 } ] }
+                """);
+        RiskThresholdsRegistry.Info info = registry.reload();
+
+        assertEquals(version, info.version());
+        assertNotNull(info.lastError());
+        assertEquals(5, registry.current().resolve("PIX", null).panicMaxTransactions());
+
+        Files.writeString(file, """
+                { "overrides": [ { "channel": "PIX", "panicMaxTransacions": 4 } ] }
+                """);
+        assertEquals(version, registry.reload().version());
+
+        Files.writeString(file, """
+                { "overrides": [ { "channel": "PIX", "panicMaxTransactions": 4 } ] }
+                """);
+        info = registry.reload();
+        assertEquals(version + 1, info.version());
+        assertNull(info.lastError());
+        assertEquals(4, registry.current().resolve("PIX", null).panicMaxTransactions());
+    }
+
+    // Teste: contas por IP/dispositivo acima do que o índice rastreia são rejeitadas no reload
+    @Test
+    void sharedAccountsAboveIndexCapacityAreRejected() throws Exception {
+        registry.init();
+        long version = registry.current().version();
+
+        Files.writeString(file, """
+                { "overrides": [ { "channel": "PIX", "maxDeviceAccounts": 65 } ] }
+                """);
+        RiskThresholdsRegistry.Info info = registry.reload();
+
+        assertEquals(version, info.version());
+        assertTrue(info.lastError().contains("maxDeviceAccounts"));
+
+        Files.writeString(file, """
+                { "overrides": [ { "channel": "PIX", "maxIpAccounts": 64 } ] }
+                """);
+        assertTrue(registry.reload().version() > version);
+        assertEquals(64, registry.current().resolve("PIX", null).maxIpAccounts());
+    }
+}
@@ -0,0 +1,203 @@
+package com.projeto.antifraud.service.rule;
+
+import com.projeto.antifraud.entity.RiskContribution;
+import com.projeto.antifraud.entity.RiskReason;
+import com.projeto.antifraud.entity.RiskStatus;
+import com.projeto.antifraud.entity.Transaction;
+import com.projeto.antifraud.service.LastSeen;
+import com.projeto.antifraud.service.RiskContext;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+  Testes unitários para RuleEngine.
+  - Objetivo: a ordem de execução por custo não pode mudar a razão reportada
+    (prioridade original) e regras que não podem mais vencer são puladas.
+  - Modo de pontuação: soma dos pesos, parada quando a faixa está garantida
+    e decisão incompleta quando o orçamento de latência acaba.
+*/
+class RuleEngineTest {
+
+    private final List<RiskRule> rules = List.of(
+            new AuthAttemptsRule(), new PanicModeRule(), new SharedEntityRule(), new ChannelChangeRule(), new DeviceChangeRule(),
+            new GeoChangeRule(), new MultipleReceiversRule(), new HighAmountRule(), new NewReceiverRule());
+
+    private Transaction tx(String amount, int authAttempts) {
+        Transaction t = new Transaction(new BigDecimal(amount), "s1", "r1", LocalDateTime.of(2025,11,27,12,0));
+        t.setChannel("APP");
+        t.setDeviceId("dev-1");
+        t.setAuthAttempts(authAttempts);
+        return t;
+    }
+
+    // Teste: regra de maior prioridade vence mesmo executada depois de uma mais barata
+    @Test
+    void higherPriorityRuleWins_regardlessOfExecutionOrder() {
+        RuleEngine engine = new RuleEngine(rules, "high-amount,panic-mode");
+
+        RuleMatch match = engine.evaluate(tx("2500.00", 0), RiskContext.of(3, 1, null, true));
+
+        assertEquals("panic-mode", match.rule());
+        assertEquals(RiskReason.PANIC_MODE, match.reason());
+    }
+
+    // Teste: após um acerto de prioridade máxima, regras com estado são puladas
+    @Test
+    void statefulRulesAreSkipped_whenDecisionIsFinal() {
+        RuleEngine engine = new RuleEngine(rules, "");
+
+        RuleMatch match = engine.evaluate(tx("10.00", 3), RiskContext.of(0, 1, null, true));
+
+        assertEquals("auth-attempts", match.rule());
+        assertEquals(0, engine.statsFor("device-change").evaluations());
+        assertEquals(1, engine.statsFor("device-change").skipped());
+    }
+
+    // Teste: sem acertos todas as regras são avaliadas e nenhuma corresponde
+    @Test
+    void noMatch_evaluatesAllRules() {
+        RuleEngine engine = new RuleEngine(rules, "");
+
+        assertNull(engine.evaluate(tx("10.00", 0), RiskContext.of(0, 1, null, true)));
+        rules.forEach(r -> assertEquals(1, engine.statsFor(r.name()).evaluations()));
+    }
+
+    // Teste: sinais somam pesos e a faixa vem dos limites (25 + 35 = 60 -> REVIEW)
+    @Test
+    void score_accumulatesWeightsIntoReviewBand() {
+        RuleEngine engine = new RuleEngine(rules, "");
+        ScoringPolicy policy = new ScoringPolicy("", 40, 80, 0);
+        Transaction last = tx("10.00", 0);
+        last.setChannel("WEB");
+        last.setDeviceId("dev-old");
+        last.setTimestamp(LocalDateTime.of(2025,11,27,11,50));
+
+        ScoreCard card = engine.score(tx("10.00", 0), RiskContext.of(0, 1, LastSeen.of(last), true), policy);
+
+        assertEquals(60, card.score());
+        assertEquals(RiskStatus.REVIEW, card.status());
+        assertTrue(card.complete());
+        assertEquals(2, card.contributions().size());
+        assertEquals(RiskReason.DEVICE_CHANGE, card.reason());
+    }
+
+    // Teste: mudança de canal leva o canal anterior e o atual na contribuição; a mensagem continua a constante
+    @Test
+    void score_channelChangeContributionCarriesChannels() {
+        RuleEngine engine = new RuleEngine(rules, "");
+        ScoringPolicy policy = new ScoringPolicy("", 40, 80, 0);
+        Transaction last = tx("10.00", 0);
+        last.setChannel("WEB");
+        last.setTimestamp(LocalDateTime.of(2025,11,27,11,50));
+
+        ScoreCard card = engine.score(tx("10.00", 0), RiskContext.of(0, 1, LastSeen.of(last), true), policy);
+
+        RiskContribution channel = card.contributions().stream()
+                .filter(c -> c.reason() == RiskReason.CHANNEL_CHANGE).findFirst().orElseThrow();
+        assertEquals("antes WEB, agora APP", channel.detail());
+        assertEquals(RiskReason.CHANNEL_CHANGE, engine.evaluate(tx("10.00", 0),
+                RiskContext.of(0, 1, LastSeen.of(last), true)).reason());
+    }
+
+    // Teste: mensagens gravadas antes das janelas configuráveis ainda são reconhecidas
+    @Test
+    void legacyMessages_mapToTheirCodes() {
+        assertEquals(RiskReason.MULTIPLE_RECEIVERS,
+                RiskReason.fromMessage("Padrão suspeito: múltiplos recebedores distintos em 1 hora."));
+        assertEquals(RiskReason.SHARED_IP, RiskReason.fromMessage(RiskReason.SHARED_IP.message()));
+        assertFalse(RiskReason.SHARED_DEVICE.message().contains("1 hora"));
+    }
+
+    // Teste: com a faixa máxima já atingida, as regras restantes são puladas
+    @Test
+    void score_stopsOnceBandCannotChange() {
+        RuleEngine engine = new RuleEngine(rules, "auth-attempts");
+        ScoringPolicy policy = new ScoringPolicy("", 40, 80, 0);
+
+        ScoreCard card = engine.score(tx("10.00", 3), RiskContext.of(0, 1, null, true), policy);
+
+        assertEquals(RiskStatus.REJECTED, card.status());
+        assertEquals(RiskReason.AUTH_ATTEMPTS, card.reason());
+        assertEquals(0, engine.statsFor("new-receiver").evaluations());
+        assertEquals(1, engine.statsFor("new-receiver").skipped());
+    }
+
+    // Teste: pesos configurados substituem os padrões
+    @Test
+    void score_usesConfiguredWeights() {
+        RuleEngine engine = new RuleEngine(rules, "");
+        ScoringPolicy policy = new ScoringPolicy("HIGH_AMOUNT=90", 40, 80, 0);
+
+        ScoreCard card = engine.score(tx("2500.00", 0), RiskContext.of(0, 1, null, true), policy);
+
+        assertEquals(RiskStatus.REJECTED, card.status());
+        assertEquals(RiskReason.HIGH_AMOUNT, card.reason());
+    }
+
+    // Teste: sem sinais a transação é aprovada com pontuação zero
+    @Test
+    void score_noSignals_isApproved() {
+        RuleEngine engine = new RuleEngine(rules, "");
+        ScoringPolicy policy = new ScoringPolicy("", 40, 80, 0);
+
+        ScoreCard card = engine.score(tx("10.00", 0), RiskContext.of(0, 1, null, true), policy);
+
+        assertEquals(0, card.score());
+        assertEquals(RiskStatus.APPROVED, card.status());
+        assertEquals(RiskReason.APPROVED, card.reason());
+    }
+
+    // Teste: orçamento esgotado antes da decisão garantida -> REVIEW, marcada como incompleta
+    @Test
+    void score_budgetExhausted_isIncompleteReview() {
+        RiskRule slow = new RiskRule() {
+            public String name() { return "slow"; }
+            public int priority() { return 5; }
+            public Set<RiskReason> reasons() { return Set.of(RiskReason.GEO_CHANGE); }
+            public RiskReason evaluate(Transaction transaction, RiskContext ctx) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        };
+        List<RiskRule> withSlow = new ArrayList<>(rules);
+        withSlow.add(0, slow);
+        RuleEngine engine = new RuleEngine(withSlow, "slow");
+        ScoringPolicy policy = new ScoringPolicy("", 40, 80, 1_000);
+
+        ScoreCard card = engine.score(tx("10.00", 0), RiskContext.of(0, 1, null, true), policy);
+
+        assertFalse(card.complete());
+        assertEquals(RiskStatus.REVIEW, card.status());
+        assertEquals(RiskReason.LOOKUP_TIMEOUT, card.reason());
+    }
+
+    // Teste: faixas inconsistentes são rejeitadas
+    @Test
+    void invalidThresholds_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ScoringPolicy("", 80, 40, 0));
+    }
+
+    // Teste: peso negativo é rejeitado (a parada antecipada da pontuação supõe soma crescente)
+    @Test
+    void negativeWeight_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ScoringPolicy("GEO_CHANGE=-10", 40, 80, 0));
+        assertEquals(0, new ScoringPolicy("GEO_CHANGE=0", 40, 80, 0).weight(RiskReason.GEO_CHANGE));
+    }
+
+    // Teste: ordem configurada com regra desconhecida é rejeitada
+    @Test
+    void unknownRuleInConfiguredOrder_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RuleEngine(rules, "nao-existe"));
+    }
+}